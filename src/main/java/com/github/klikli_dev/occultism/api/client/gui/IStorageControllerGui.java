@@ -23,6 +23,7 @@
 package com.github.klikli_dev.occultism.api.client.gui;
 
 import com.github.klikli_dev.occultism.api.common.data.MachineReference;
+import com.github.klikli_dev.occultism.common.misc.StackQuery;
 import net.minecraft.item.ItemStack;
 
 import java.util.List;
@@ -31,6 +32,28 @@ public interface IStorageControllerGui {
     //region Getter / Setter
     void setStacks(List<ItemStack> stacks);
 
+    /**
+     * Applies a stack delta to the current stacks.
+     *
+     * @param changedStacks the added or changed stacks, with their new total count.
+     * @param removedStacks the removed stacks.
+     */
+    void updateStacks(List<ItemStack> changedStacks, List<ItemStack> removedStacks);
+
+    /**
+     * Sets the stacks matching a stack query, sent instead of all stacks for very large storage controllers.
+     * Once called, the gui only shows pages received this way.
+     *
+     * @param query         the query the stacks were selected by.
+     * @param stacks        the stacks in the window requested by the query.
+     * @param matchingCount the amount of stacks matching the query.
+     */
+    void setStackPage(StackQuery query, List<ItemStack> stacks, int matchingCount);
+
+    int getStackRevision();
+
+    void setStackRevision(int revision);
+
     void setUsedSlots(int slots);
 
     void setMaxSlots(int slots);
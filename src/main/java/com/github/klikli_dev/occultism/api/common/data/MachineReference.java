@@ -47,6 +47,10 @@ public class MachineReference implements INBTSerializable<CompoundNBT> {
     public Direction insertFacing = Direction.UP;
     public Direction extractFacing = Direction.DOWN;
     public String customName = null;
+    /**
+     * The amount of deposit orders queued for this machine, only tracked by storage controllers for display.
+     */
+    public int queuedOrders = 0;
 
     protected ItemStack cachedItemStack = ItemStack.EMPTY;
     protected Item cachedItem = null;
@@ -132,6 +136,8 @@ public class MachineReference implements INBTSerializable<CompoundNBT> {
             compound.putString("registryName", this.registryName.toString());
         if (!StringUtils.isBlank(this.customName))
             compound.putString("customName", this.customName);
+        if (this.queuedOrders > 0)
+            compound.putInt("queuedOrders", this.queuedOrders);
 
         compound.putBoolean("isChunkLoaded", this.chunkLoaded);
         compound.putByte("insertFacing", (byte) this.insertFacing.getIndex());
@@ -147,6 +153,7 @@ public class MachineReference implements INBTSerializable<CompoundNBT> {
             this.registryName = new ResourceLocation(compound.getString("registryName"));
         if (compound.contains("customName"))
             this.customName = compound.getString("customName");
+        this.queuedOrders = compound.getInt("queuedOrders");
 
         this.chunkLoaded = compound.getBoolean("isChunkLoaded");
         this.insertFacing = Direction.byIndex(compound.getInt("insertFacing"));
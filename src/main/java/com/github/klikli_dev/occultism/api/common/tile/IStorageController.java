@@ -25,7 +25,9 @@ package com.github.klikli_dev.occultism.api.common.tile;
 import com.github.klikli_dev.occultism.api.common.container.IItemStackComparator;
 import com.github.klikli_dev.occultism.api.common.data.GlobalBlockPos;
 import com.github.klikli_dev.occultism.api.common.data.MachineReference;
+import com.github.klikli_dev.occultism.common.misc.StackQuery;
 import com.github.klikli_dev.occultism.network.MessageUpdateStacks;
+import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.item.ItemStack;
 
 import java.util.List;
@@ -51,6 +53,51 @@ public interface IStorageController {
      */
     MessageUpdateStacks getMessageUpdateStacks();
 
+    /**
+     * Gets a message to update the stacks of the given viewer.
+     * Only contains the changes since the last message sent to that viewer, unless the viewer is too far behind,
+     * in which case a full snapshot is returned.
+     *
+     * @param viewer the uuid of the player viewing the stacks.
+     * @return the stack update message.
+     */
+    MessageUpdateStacks getMessageUpdateStacks(UUID viewer);
+
+    /**
+     * Sets the stack revision the given viewer currently has. Use -1 if the viewer has no stacks yet.
+     * The viewer will receive pushed updates whenever stacks or linked machines change, until it is removed.
+     * New viewers of storage controllers with very many distinct stacks are switched to a default stack query instead,
+     * see {@link #setStackQuery(UUID, StackQuery)}.
+     *
+     * @param viewer   the uuid of the player viewing the stacks.
+     * @param revision the stack revision of the viewer.
+     */
+    void setStackRevision(UUID viewer, int revision);
+
+    /**
+     * Sets the query of the given viewer. The viewer will receive only the stacks matching its query, instead of all
+     * stacks, whenever stacks change, until it is removed.
+     *
+     * @param viewer the uuid of the player viewing the stacks.
+     * @param query  the stack query of the viewer.
+     */
+    void setStackQuery(UUID viewer, StackQuery query);
+
+    /**
+     * Sends the current stacks to the given viewer: the stacks matching its query if it uses a stack query,
+     * otherwise the changes since the last message sent to it.
+     *
+     * @param player the player viewing the stacks.
+     */
+    void sendStacksTo(ServerPlayerEntity player);
+
+    /**
+     * Stops tracking the stack revision or query of the given viewer.
+     *
+     * @param viewer the uuid of the player that stopped viewing the stacks.
+     */
+    void removeStackViewer(UUID viewer);
+
     /**
      * @return the max slots available in this storage controller.
      */
@@ -101,6 +148,14 @@ public interface IStorageController {
      */
     void addDepositOrderSpirit(GlobalBlockPos linkedMachinePosition, UUID spiritId);
 
+    /**
+     * Updates the amount of deposit orders queued for the machine at the given position.
+     *
+     * @param linkedMachinePosition the position of the machine.
+     * @param queuedOrders          the amount of queued orders, including the one currently being worked on.
+     */
+    void setQueuedDepositOrders(GlobalBlockPos linkedMachinePosition, int queuedOrders);
+
     /**
      * Removes the given spirit uuid from the list of spirits to give orders to.
      *
@@ -141,6 +196,15 @@ public interface IStorageController {
      */
     int getAvailableAmount(IItemStackComparator comparator);
 
+    /**
+     * Gets all distinct stored item stacks matching the comparator, in the order
+     * {@link #getItemStack(Predicate, int, boolean)} would pick them.
+     *
+     * @param comparator the comparator to match against.
+     * @return copies of the matching stacks with their stored amount as count.
+     */
+    List<ItemStack> getAvailableStacks(Predicate<ItemStack> comparator);
+
     /**
      * Called when the contents of the storage controller change.
      */
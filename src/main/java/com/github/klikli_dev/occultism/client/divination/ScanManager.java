@@ -22,6 +22,7 @@
 
 package com.github.klikli_dev.occultism.client.divination;
 
+import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.util.Math3DUtil;
 import net.minecraft.block.Block;
 import net.minecraft.entity.player.PlayerEntity;
@@ -39,7 +40,6 @@ public class ScanManager {
     //region Fields
     public static final ScanManager instance = new ScanManager();
     public static final int SCAN_DURATION_TICKS = 40;
-    public static final int SCAN_RADIUS_BLOCKS = 96;
     List<BlockPos> results = new ArrayList<>();
     private Scanner scanner;
     private int scanningTicks = -1;
@@ -50,7 +50,8 @@ public class ScanManager {
         this.cancelScan();
 
         this.scanner = new Scanner(target);
-        this.scanner.initialize(player, player.getPositionVec(), SCAN_RADIUS_BLOCKS, SCAN_DURATION_TICKS);
+        this.scanner.initialize(player, player.getPositionVec(),
+                Occultism.CLIENT_CONFIG.misc.divinationRodScanRange.get(), SCAN_DURATION_TICKS);
     }
 
     public void updateScan(PlayerEntity player, boolean forceFinish) {
@@ -29,6 +29,9 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IChunk;
 
 import java.util.function.Consumer;
 
@@ -49,12 +52,20 @@ public class Scanner {
     protected BlockPos min;
     protected BlockPos max;
 
-    //the current scanned block
-    protected int x;
-    protected int y;
-    protected int z;
+    //the max extent of the scan in chunk sections
+    protected int minSectionX;
+    protected int minSectionY;
+    protected int minSectionZ;
+    protected int maxSectionX;
+    protected int maxSectionY;
+    protected int maxSectionZ;
 
-    private int blocksPerTick;
+    //the current scanned section
+    protected int sectionX;
+    protected int sectionY;
+    protected int sectionZ;
+
+    private int sectionsPerTick;
     //endregion Fields
 
     //region Initialization
@@ -71,13 +82,21 @@ public class Scanner {
         this.radiusSquared = this.radius * this.radius;
         this.min = new BlockPos(center).add(-this.radius, -this.radius, -this.radius);
         this.max = new BlockPos(center).add(this.radius, this.radius, this.radius);
-        this.x = this.min.getX();
-        this.y = this.min.getY() - 1;//first move next increments this to min.getY();
-        this.z = this.min.getZ();
 
-        BlockPos size = this.max.subtract(this.min);
-        int blockCount = (size.getX() + 1) * (size.getY() + 1) * (size.getZ() + 1);
-        this.blocksPerTick = MathHelper.ceil(blockCount / (float) totalTicks);
+        //clamp to the world height, sections outside of it never exist.
+        this.minSectionX = this.min.getX() >> 4;
+        this.minSectionY = Math.max(0, this.min.getY()) >> 4;
+        this.minSectionZ = this.min.getZ() >> 4;
+        this.maxSectionX = this.max.getX() >> 4;
+        this.maxSectionY = Math.min(player.world.getHeight() - 1, this.max.getY()) >> 4;
+        this.maxSectionZ = this.max.getZ() >> 4;
+        this.sectionX = this.minSectionX;
+        this.sectionY = this.minSectionY - 1;//first move next increments this to minSectionY;
+        this.sectionZ = this.minSectionZ;
+
+        int sectionCount = (this.maxSectionX - this.minSectionX + 1) * Math.max(0, this.maxSectionY - this.minSectionY + 1) *
+                           (this.maxSectionZ - this.minSectionZ + 1);
+        this.sectionsPerTick = MathHelper.ceil(sectionCount / (float) totalTicks);
     }
 
     public void reset() {
@@ -91,42 +110,84 @@ public class Scanner {
 
     public void scan(Consumer<BlockPos> resultConsumer) {
         World world = this.player.world;
-        for (int i = 0; i < this.blocksPerTick; i++) {
-            //move to next block
-            if (!this.nextBlock(world)) {
+        for (int i = 0; i < this.sectionsPerTick; i++) {
+            //move to next section
+            if (!this.nextSection()) {
                 return;
             }
 
-            //check if block is within radius
-            if (this.center.squareDistanceTo(this.x + 0.5, this.y + 0.5, this.z + 0.5) > this.radiusSquared) {
+            if (!this.isSectionInRadius()) {
+                continue;
+            }
+
+            //the chunk provider returns null for chunks the client does not have
+            IChunk chunk = world.getChunkProvider().getChunk(this.sectionX, this.sectionZ, false);
+            if (!(chunk instanceof Chunk)) {
+                continue;
+            }
+            ChunkSection section = chunk.getSections()[this.sectionY];
+
+            //the palette contains every state in the section, if the target is not in it we can skip the whole section
+            if (ChunkSection.isEmpty(section) || !section.isValidPOIState(this::isValidBlock)) {
                 continue;
             }
 
-            BlockPos pos = new BlockPos(this.x, this.y, this.z);
-            BlockState state = world.getBlockState(pos);
+            this.scanSection(section, resultConsumer);
+        }
+    }
 
-            //if this is the block we search for, consume it.
-            if (this.isValidBlock(state)) {
-                resultConsumer.accept(pos);
+    protected void scanSection(ChunkSection section, Consumer<BlockPos> resultConsumer) {
+        int originX = this.sectionX << 4;
+        int originY = this.sectionY << 4;
+        int originZ = this.sectionZ << 4;
+        int minX = Math.max(this.min.getX(), originX);
+        int minY = Math.max(this.min.getY(), originY);
+        int minZ = Math.max(this.min.getZ(), originZ);
+        int maxX = Math.min(this.max.getX(), originX + 15);
+        int maxY = Math.min(this.max.getY(), originY + 15);
+        int maxZ = Math.min(this.max.getZ(), originZ + 15);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    //check if block is within radius
+                    if (this.center.squareDistanceTo(x + 0.5, y + 0.5, z + 0.5) > this.radiusSquared) {
+                        continue;
+                    }
+
+                    //if this is the block we search for, consume it.
+                    BlockState state = section.getBlockState(x - originX, y - originY, z - originZ);
+                    if (this.isValidBlock(state)) {
+                        resultConsumer.accept(new BlockPos(x, y, z));
+                    }
+                }
             }
         }
     }
 
-    public boolean nextBlock(World world) {
-        this.y++;
-        if (this.y > this.max.getY() || this.y >= world.getHeight()) {
-            this.y = this.min.getY();
-            this.x++;
-            if (this.x > this.max.getX()) {
-                this.x = this.min.getX();
-                this.z++;
-                if (this.z > this.max.getZ()) {
-                    this.blocksPerTick = 0;
+    protected boolean isSectionInRadius() {
+        //distance from the center to the closest point of the section
+        double closestX = MathHelper.clamp(this.center.x, this.sectionX << 4, (this.sectionX << 4) + 16);
+        double closestY = MathHelper.clamp(this.center.y, this.sectionY << 4, (this.sectionY << 4) + 16);
+        double closestZ = MathHelper.clamp(this.center.z, this.sectionZ << 4, (this.sectionZ << 4) + 16);
+        return this.center.squareDistanceTo(closestX, closestY, closestZ) <= this.radiusSquared;
+    }
+
+    public boolean nextSection() {
+        this.sectionY++;
+        if (this.sectionY > this.maxSectionY) {
+            this.sectionY = this.minSectionY;
+            this.sectionX++;
+            if (this.sectionX > this.maxSectionX) {
+                this.sectionX = this.minSectionX;
+                this.sectionZ++;
+                if (this.sectionZ > this.maxSectionZ) {
+                    this.sectionsPerTick = 0;
                     return false;
                 }
             }
         }
-        return true;
+        return this.sectionY <= this.maxSectionY;
     }
 
     public boolean isValidBlock(BlockState state) {
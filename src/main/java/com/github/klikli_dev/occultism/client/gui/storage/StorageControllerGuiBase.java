@@ -32,12 +32,12 @@ import com.github.klikli_dev.occultism.client.gui.controls.LabelWidget;
 import com.github.klikli_dev.occultism.client.gui.controls.MachineSlotWidget;
 import com.github.klikli_dev.occultism.client.gui.controls.SizedImageButton;
 import com.github.klikli_dev.occultism.common.container.storage.StorageControllerContainerBase;
+import com.github.klikli_dev.occultism.common.misc.StackQuery;
 import com.github.klikli_dev.occultism.integration.jei.JeiAccess;
 import com.github.klikli_dev.occultism.integration.jei.JeiSettings;
 import com.github.klikli_dev.occultism.network.*;
 import com.github.klikli_dev.occultism.util.InputUtil;
 import com.github.klikli_dev.occultism.util.TextUtil;
-import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
@@ -47,7 +47,6 @@ import net.minecraft.client.gui.screen.inventory.ContainerScreen;
 import net.minecraft.client.gui.widget.TextFieldWidget;
 import net.minecraft.client.gui.widget.button.Button;
 import net.minecraft.client.resources.I18n;
-import net.minecraft.client.util.ITooltipFlag;
 import net.minecraft.client.util.InputMappings;
 import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.IInventory;
@@ -66,7 +65,6 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public abstract class StorageControllerGuiBase<T extends StorageControllerContainerBase> extends ContainerScreen<T> implements IStorageControllerGui, IStorageControllerGuiContainer, IInventoryChangedListener {
     //region Fields
@@ -75,15 +73,32 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
             "textures/gui/storage_controller_droparea.png");
     protected static final ResourceLocation BUTTONS = new ResourceLocation(Occultism.MODID, "textures/gui/buttons.png");
     protected static final String TRANSLATION_KEY_BASE = "gui." + Occultism.MODID + ".storage_controller";
-    public List<ItemStack> stacks;
+    public StorageControllerItemView itemView;
     public List<MachineReference> linkedMachines;
     public IStorageControllerContainer storageControllerContainer;
     public int usedSlots;
     public int maxSlots;
+    public int stackRevision = -1;
+    /**
+     * The current page of stacks for very large storage controllers, null if all stacks are known to the item view.
+     */
+    protected List<ItemStack> stackPage;
+    protected StackQuery stackPageQuery;
+    protected int stackPageMatchingCount;
+    protected int stackPageVersion;
+    /**
+     * The last query sent to the server, only sent again if the search, sorting or page changes.
+     */
+    protected StackQuery requestedStackQuery;
     public StorageControllerGuiMode guiMode = StorageControllerGuiMode.INVENTORY;
     protected ItemStack stackUnderMouse = ItemStack.EMPTY;
     protected TextFieldWidget searchBar;
     protected List<ItemSlotWidget> itemSlots = new ArrayList<>();
+    /**
+     * The item view version and page the item slots were built for, -1 to force a rebuild.
+     */
+    protected int itemSlotsVersion = -1;
+    protected int itemSlotsPage = -1;
     protected List<MachineSlotWidget> machineSlots = new ArrayList<>();
     protected Button clearTextButton;
     protected Button clearRecipeButton;
@@ -119,7 +134,7 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
         this.currentPage = 1;
         this.totalPages = 1;
 
-        this.stacks = new ArrayList<>();
+        this.itemView = new StorageControllerItemView();
         this.linkedMachines = new ArrayList<>();
 
         this.lastClick = System.currentTimeMillis();
@@ -180,12 +195,40 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
             tooltip.add(new TranslationTextComponent(TextFormatting.GRAY.toString() + TextFormatting.ITALIC +
                     machine.globalPos.getDimensionKey().getLocation() +
                                                      TextFormatting.RESET));
+
+        if (machine.queuedOrders > 0)
+            tooltip.add(new TranslationTextComponent(
+                    "gui." + Occultism.MODID + ".storage_controller.machines.queued_orders", machine.queuedOrders)
+                                .mergeStyle(TextFormatting.GRAY));
         this.func_243308_b(matrixStack, tooltip, x, y); //renderTooltip
     }
 
     @Override
     public void setStacks(List<ItemStack> stacks) {
-        this.stacks = stacks;
+        this.itemView.setStacks(stacks);
+    }
+
+    @Override
+    public void updateStacks(List<ItemStack> changedStacks, List<ItemStack> removedStacks) {
+        this.itemView.updateStacks(changedStacks, removedStacks);
+    }
+
+    @Override
+    public void setStackPage(StackQuery query, List<ItemStack> stacks, int matchingCount) {
+        this.stackPage = stacks;
+        this.stackPageQuery = query;
+        this.stackPageMatchingCount = matchingCount;
+        this.stackPageVersion++;
+    }
+
+    @Override
+    public int getStackRevision() {
+        return this.stackRevision;
+    }
+
+    @Override
+    public void setStackRevision(int revision) {
+        this.stackRevision = revision;
     }
 
     @Override
@@ -211,6 +254,8 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
     @Override
     public void init() {
         super.init();
+        //gui position may have changed, so slots need to be rebuilt
+        this.itemSlotsVersion = -1;
         this.guiLeft = (this.width - this.xSize) / 2 - ORDER_AREA_OFFSET;
         this.guiTop = (this.height - this.ySize) / 2;
 
@@ -421,7 +466,6 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
     @Override
     public boolean charTyped(char typedChar, int keyCode) {
         if (this.searchBar.isFocused() && this.searchBar.charTyped(typedChar, keyCode)) {
-            OccultismPackets.sendToServer(new MessageRequestStacks());
             if (JeiSettings.isJeiLoaded() && JeiSettings.isJeiSearchSynced()) {
                 JeiAccess.setFilterText(this.searchBar.getText());
             }
@@ -441,7 +485,7 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
                 this.guiTop + clearRecipeButtonTop, controlButtonSize, controlButtonSize, 0, 196, 28, 28, 28, 256, 256,
                 BUTTONS, (button) -> {
             OccultismPackets.sendToServer(new MessageClearCraftingMatrix());
-            OccultismPackets.sendToServer(new MessageRequestStacks());
+            OccultismPackets.sendToServer(new MessageRequestStacks(this.stackRevision));
             this.init();
         });
         this.addButton(this.clearRecipeButton);
@@ -541,10 +585,42 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
     }
 
     protected void drawItems(MatrixStack matrixStack, float partialTicks, int mouseX, int mouseY) {
-        List<ItemStack> stacksToDisplay = this.applySearchToItems();
-        this.sortItemStacks(stacksToDisplay);
+        if (this.stackPage != null) {
+            this.drawItemPage(matrixStack, mouseX, mouseY);
+            return;
+        }
+
+        List<ItemStack> stacksToDisplay = this.itemView.getStacks(this.searchBar.getText(), this.getSortType(),
+                this.getSortDirection());
         this.buildPage(stacksToDisplay);
-        this.buildItemSlots(stacksToDisplay);
+        //only rebuild slots if the displayed stacks or the page changed
+        if (this.itemSlotsVersion != this.itemView.getVersion() || this.itemSlotsPage != this.currentPage) {
+            this.buildItemSlots(stacksToDisplay);
+            this.itemSlotsVersion = this.itemView.getVersion();
+            this.itemSlotsPage = this.currentPage;
+        }
+        this.drawItemSlots(matrixStack, mouseX, mouseY);
+    }
+
+    /**
+     * Draws the stacks of very large storage controllers, which only send the stacks visible with the current search,
+     * sorting and page. Requests a new page whenever one of those changes.
+     */
+    protected void drawItemPage(MatrixStack matrixStack, int mouseX, int mouseY) {
+        this.buildPage(this.stackPageMatchingCount);
+        StackQuery query = new StackQuery(this.searchBar.getText(), this.getSortType(), this.getSortDirection(),
+                (this.currentPage - 1) * this.columns, this.rows * this.columns);
+        if (!query.equals(this.requestedStackQuery)) {
+            this.requestedStackQuery = query;
+            OccultismPackets.sendToServer(new MessageQueryStacks(query));
+        }
+
+        //only rebuild slots if a new page arrived or the page changed
+        if (this.itemSlotsVersion != this.stackPageVersion || this.itemSlotsPage != this.currentPage) {
+            this.buildItemSlots(this.stackPage, this.stackPageQuery.getOffset());
+            this.itemSlotsVersion = this.stackPageVersion;
+            this.itemSlotsPage = this.currentPage;
+        }
         this.drawItemSlots(matrixStack, mouseX, mouseY);
     }
 
@@ -665,12 +741,20 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
     }
 
     protected void buildItemSlots(List<ItemStack> stacksToDisplay) {
+        this.buildItemSlots(stacksToDisplay, 0);
+    }
+
+    /**
+     * @param stacksToDisplay the stacks to display.
+     * @param firstIndex      the index of the first of the given stacks within all stacks.
+     */
+    protected void buildItemSlots(List<ItemStack> stacksToDisplay, int firstIndex) {
 
         int itemAreaLeft = 8 + ORDER_AREA_OFFSET;
         int itemAreaTop = 24;
 
         this.itemSlots = new ArrayList<>();
-        int index = (this.currentPage - 1) * (this.columns);
+        int index = (this.currentPage - 1) * (this.columns) - firstIndex;
         for (int row = 0; row < this.rows; row++) {
             if (index >= stacksToDisplay.size()) {
                 break;
@@ -679,6 +763,11 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
                 if (index >= stacksToDisplay.size()) {
                     break;
                 }
+                if (index < 0) {
+                    //page is not loaded yet
+                    index++;
+                    continue;
+                }
                 this.itemSlots
                         .add(new ItemSlotWidget(this, stacksToDisplay.get(index),
                                 this.guiLeft + itemAreaLeft + col * 18,
@@ -690,8 +779,12 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
     }
 
     protected void buildPage(List<?> objectsToDisplay) {
-        this.totalPages = objectsToDisplay.size() / this.columns;
-        if (objectsToDisplay.size() % this.columns != 0) {
+        this.buildPage(objectsToDisplay.size());
+    }
+
+    protected void buildPage(int objectsToDisplay) {
+        this.totalPages = objectsToDisplay / this.columns;
+        if (objectsToDisplay % this.columns != 0) {
             this.totalPages++;
         }
         this.totalPages -= (this.rows - 1);
@@ -706,48 +799,6 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
         }
     }
 
-    protected void sortItemStacks(List<ItemStack> stacksToDisplay) {
-        stacksToDisplay.sort(new Comparator<ItemStack>() {
-
-            //region Fields
-            int direction = StorageControllerGuiBase.this.getSortDirection().isDown() ? -1 : 1;
-            //endregion Fields
-
-            //region Overrides
-            @Override
-            public int compare(ItemStack a, ItemStack b) {
-                switch (StorageControllerGuiBase.this.getSortType()) {
-                    case AMOUNT:
-                        return Integer.compare(b.getCount(), a.getCount()) * this.direction;
-                    case NAME:
-                        return a.getDisplayName().getUnformattedComponentText()
-                                       .compareToIgnoreCase(b.getDisplayName().getUnformattedComponentText()) *
-                               this.direction;
-                    case MOD:
-                        return TextUtil.getModNameForGameObject(a.getItem())
-                                       .compareToIgnoreCase(TextUtil.getModNameForGameObject(b.getItem())) *
-                               this.direction;
-                }
-                return 0;
-            }
-            //endregion Overrides
-        });
-    }
-
-    protected List<ItemStack> applySearchToItems() {
-        String searchText = this.searchBar.getText();
-
-        if (!searchText.equals("")) {
-            List<ItemStack> stacksToDisplay = new ArrayList<>();
-            for (ItemStack stack : this.stacks) {
-                if (this.itemMatchesSearch(stack))
-                    stacksToDisplay.add(stack);
-            }
-            return stacksToDisplay;
-        }
-        return new ArrayList<>(this.stacks);
-    }
-
     protected List<MachineReference> applySearchToMachines() {
         String searchText = this.searchBar.getText();
 
@@ -763,33 +814,6 @@ public abstract class StorageControllerGuiBase<T extends StorageControllerContai
         return new ArrayList<>(this.linkedMachines);
     }
 
-    protected boolean itemMatchesSearch(ItemStack stack) {
-        String searchText = this.searchBar.getText();
-        if (searchText.startsWith("@")) {
-            String name = TextUtil.getModNameForGameObject(stack.getItem());
-            return name.toLowerCase().contains(searchText.toLowerCase().substring(1));
-        }
-        else if (searchText.startsWith("#")) {
-            List<String> tooltip = stack.getTooltip(this.minecraft.player, ITooltipFlag.TooltipFlags.NORMAL).stream()
-                    .map(ITextComponent::getString).collect(
-                            Collectors.toList());
-            String tooltipString = Joiner.on(' ').join(tooltip).toLowerCase().trim();
-            return tooltipString.toLowerCase().contains(searchText.toLowerCase().substring(1));
-        }
-        else if (searchText.startsWith("$")) {
-            StringBuilder tagStringBuilder = new StringBuilder();
-            for (ResourceLocation tag : stack.getItem().getTags()) {
-                tagStringBuilder.append(tag.toString()).append(' ');
-            }
-            return tagStringBuilder.toString().toLowerCase().contains(searchText.toLowerCase().substring(1));
-        }
-        else {
-            //Note: If search stops working, forge may have re-implemented .getUnformattedComponentText() for translated text components
-            return stack.getDisplayName().getString().toLowerCase()
-                           .contains(searchText.toLowerCase());
-        }
-    }
-
     protected boolean machineMatchesSearch(MachineReference machine) {
         String searchText = this.searchBar.getText();
         if (searchText.startsWith("@")) {
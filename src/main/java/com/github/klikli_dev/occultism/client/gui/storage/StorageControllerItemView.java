@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.client.gui.storage;
+
+import com.github.klikli_dev.occultism.api.common.data.SortDirection;
+import com.github.klikli_dev.occultism.api.common.data.SortType;
+import com.github.klikli_dev.occultism.common.misc.ItemStackKey;
+import com.github.klikli_dev.occultism.util.TextUtil;
+import com.google.common.base.Joiner;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.util.ITooltipFlag;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.text.ITextComponent;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Client side view of the stacks in a storage controller.
+ * Caches lower case search strings per stack, only re-sorts if the stacks or the sort settings change and narrows
+ * the previous search result if the search text is extended, instead of filtering all stacks again.
+ */
+public class StorageControllerItemView {
+
+    //region Fields
+    protected Map<ItemStackKey, Entry> entries = new HashMap<>();
+    protected List<Entry> sortedEntries = new ArrayList<>();
+    protected List<Entry> filteredEntries = new ArrayList<>();
+    protected List<ItemStack> filteredStacks = new ArrayList<>();
+
+    protected boolean isSorted;
+    protected SortType sortType;
+    protected SortDirection sortDirection;
+    /**
+     * The lower case search text the filtered entries were built for, null if they need to be rebuilt.
+     */
+    protected String searchText;
+
+    /**
+     * Increased whenever the filtered stacks change, allows the gui to skip rebuilding unchanged pages.
+     */
+    protected int version;
+    //endregion Fields
+
+    //region Getter / Setter
+    public int getVersion() {
+        return this.version;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+    //endregion Getter / Setter
+
+    //region Methods
+
+    /**
+     * Replaces all stacks. Cached search strings are kept for stacks that are still present.
+     *
+     * @param stacks the new stacks.
+     */
+    public void setStacks(List<ItemStack> stacks) {
+        Map<ItemStackKey, Entry> entries = new HashMap<>(stacks.size());
+        for (ItemStack stack : stacks) {
+            ItemStackKey key = ItemStackKey.of(stack);
+            Entry entry = this.entries.get(key);
+            if (entry != null)
+                entry.stack = stack;
+            else
+                entry = new Entry(stack);
+            entries.put(key, entry);
+        }
+        this.entries = entries;
+        this.invalidate();
+    }
+
+    /**
+     * Applies a stack delta.
+     *
+     * @param changedStacks the added or changed stacks, with their new total count.
+     * @param removedStacks the removed stacks.
+     */
+    public void updateStacks(List<ItemStack> changedStacks, List<ItemStack> removedStacks) {
+        if (changedStacks.isEmpty() && removedStacks.isEmpty())
+            return;
+
+        for (ItemStack stack : removedStacks) {
+            this.entries.remove(ItemStackKey.probe(stack));
+        }
+        for (ItemStack stack : changedStacks) {
+            Entry entry = this.entries.computeIfAbsent(ItemStackKey.of(stack), key -> new Entry(stack));
+            entry.stack = stack;
+        }
+        this.invalidate();
+    }
+
+    /**
+     * Gets the stacks matching the given search text, sorted according to the given sort settings.
+     *
+     * @param searchText    the search text.
+     * @param sortType      the sort type.
+     * @param sortDirection the sort direction.
+     * @return the filtered and sorted stacks. Do not modify!
+     */
+    public List<ItemStack> getStacks(String searchText, SortType sortType, SortDirection sortDirection) {
+        if (!this.isSorted || sortType != this.sortType || sortDirection != this.sortDirection) {
+            this.sort(sortType, sortDirection);
+            //filtered entries are taken from the sorted entries, so they need to be rebuilt too.
+            this.searchText = null;
+        }
+
+        searchText = searchText.toLowerCase();
+        if (!searchText.equals(this.searchText)) {
+            //if the search only got more specific, the new results are a subset of the previous results.
+            List<Entry> source = this.isNarrowing(this.searchText, searchText) ? this.filteredEntries :
+                                         this.sortedEntries;
+            this.filter(source, searchText);
+        }
+        return this.filteredStacks;
+    }
+
+    protected void invalidate() {
+        this.isSorted = false;
+        this.searchText = null;
+    }
+
+    protected void sort(SortType sortType, SortDirection sortDirection) {
+        this.sortType = sortType;
+        this.sortDirection = sortDirection;
+        this.sortedEntries = new ArrayList<>(this.entries.values());
+
+        Comparator<Entry> comparator;
+        switch (sortType) {
+            case NAME:
+                comparator = Comparator.comparing(entry -> entry.name);
+                break;
+            case MOD:
+                comparator = Comparator.comparing(entry -> entry.modName);
+                break;
+            case AMOUNT:
+            default:
+                comparator = Comparator.comparingInt(entry -> entry.stack.getCount());
+                break;
+        }
+        //amount sorts descending for "up", names sort descending for "down"
+        boolean reverse = sortType == SortType.AMOUNT ? !sortDirection.isDown() : sortDirection.isDown();
+        this.sortedEntries.sort(reverse ? comparator.reversed() : comparator);
+        this.isSorted = true;
+    }
+
+    protected void filter(List<Entry> source, String searchText) {
+        List<Entry> filteredEntries = new ArrayList<>(source.size());
+        if (searchText.isEmpty()) {
+            filteredEntries.addAll(source);
+        }
+        else {
+            for (Entry entry : source) {
+                if (entry.matches(searchText))
+                    filteredEntries.add(entry);
+            }
+        }
+
+        this.filteredEntries = filteredEntries;
+        this.filteredStacks = new ArrayList<>(filteredEntries.size());
+        for (Entry entry : filteredEntries) {
+            this.filteredStacks.add(entry.stack);
+        }
+        this.searchText = searchText;
+        this.version++;
+    }
+
+    protected boolean isNarrowing(String previousSearchText, String searchText) {
+        if (previousSearchText == null || previousSearchText.isEmpty())
+            return false;
+        //the search mode prefix (@, #, $) has to match, after that the old term has to be part of the new term.
+        char previousMode = previousSearchText.charAt(0);
+        char mode = searchText.isEmpty() ? ' ' : searchText.charAt(0);
+        if (Entry.isSearchMode(previousMode) || Entry.isSearchMode(mode)) {
+            return previousMode == mode && searchText.substring(1).contains(previousSearchText.substring(1));
+        }
+        return searchText.contains(previousSearchText);
+    }
+    //endregion Methods
+
+    protected static class Entry {
+        //region Fields
+        protected ItemStack stack;
+        protected final String name;
+        protected final String modName;
+        protected final String tags;
+        /**
+         * Tooltips are expensive to build and only needed for tooltip search, so they are created lazily.
+         */
+        protected String tooltip;
+        //endregion Fields
+
+        //region Initialization
+        protected Entry(ItemStack stack) {
+            this.stack = stack;
+            //Note: If search stops working, forge may have re-implemented .getUnformattedComponentText() for translated text components
+            this.name = stack.getDisplayName().getString().toLowerCase();
+            this.modName = TextUtil.getModNameForGameObject(stack.getItem()).toLowerCase();
+            StringBuilder tagStringBuilder = new StringBuilder();
+            for (ResourceLocation tag : stack.getItem().getTags()) {
+                tagStringBuilder.append(tag.toString()).append(' ');
+            }
+            this.tags = tagStringBuilder.toString().toLowerCase();
+        }
+        //endregion Initialization
+
+        //region Static Methods
+        protected static boolean isSearchMode(char c) {
+            return c == '@' || c == '#' || c == '$';
+        }
+        //endregion Static Methods
+
+        //region Methods
+
+        /**
+         * @param searchText the lower case search text.
+         * @return true if this entry matches the search text.
+         */
+        protected boolean matches(String searchText) {
+            if (searchText.startsWith("@")) {
+                return this.modName.contains(searchText.substring(1));
+            }
+            else if (searchText.startsWith("#")) {
+                return this.getTooltip().contains(searchText.substring(1));
+            }
+            else if (searchText.startsWith("$")) {
+                return this.tags.contains(searchText.substring(1));
+            }
+            else {
+                return this.name.contains(searchText);
+            }
+        }
+
+        protected String getTooltip() {
+            if (this.tooltip == null) {
+                List<String> tooltip = this.stack.getTooltip(Minecraft.getInstance().player,
+                        ITooltipFlag.TooltipFlags.NORMAL).stream().map(ITextComponent::getString).collect(
+                        Collectors.toList());
+                this.tooltip = Joiner.on(' ').join(tooltip).toLowerCase().trim();
+            }
+            return this.tooltip;
+        }
+        //endregion Methods
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.client.render;
+
+import com.github.klikli_dev.occultism.common.block.otherworld.IOtherworldBlock;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client side cache of otherworld block positions per chunk section.
+ * Sections are only walked if their block state palette contains an otherworld block, and are invalidated on block
+ * updates and chunk (re)loads.
+ */
+public class OtherworldBlockCache {
+    //region Fields
+    protected static final int[] EMPTY = new int[0];
+
+    /**
+     * Positions of otherworld blocks by section, packed as section local y << 8 | z << 4 | x.
+     */
+    protected final Map<Long, int[]> sections = new HashMap<>();
+    protected int version;
+    //endregion Fields
+
+    //region Getter / Setter
+
+    /**
+     * @return a counter that changes whenever cached sections are invalidated.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+    //endregion Getter / Setter
+
+    //region Static Methods
+    public static int getLocalX(int packed) {
+        return packed & 15;
+    }
+
+    public static int getLocalY(int packed) {
+        return packed >> 8 & 15;
+    }
+
+    public static int getLocalZ(int packed) {
+        return packed >> 4 & 15;
+    }
+    //endregion Static Methods
+
+    //region Methods
+
+    /**
+     * Gets the otherworld block positions in the given section.
+     *
+     * @param world    the world.
+     * @param sectionX the section x coordinate.
+     * @param sectionY the section y coordinate.
+     * @param sectionZ the section z coordinate.
+     * @return the positions, packed as section local y << 8 | z << 4 | x.
+     */
+    public int[] getPositions(World world, int sectionX, int sectionY, int sectionZ) {
+        if (sectionY < 0 || sectionY > 15)
+            return EMPTY;
+
+        long key = SectionPos.asLong(sectionX, sectionY, sectionZ);
+        int[] positions = this.sections.get(key);
+        if (positions != null)
+            return positions;
+
+        //the chunk provider returns null for chunks the client does not have, do not cache those.
+        Chunk chunk = world.getChunkProvider().getChunk(sectionX, sectionZ, false);
+        if (chunk == null)
+            return EMPTY;
+
+        positions = this.findPositions(chunk.getSections()[sectionY]);
+        this.sections.put(key, positions);
+        return positions;
+    }
+
+    public void invalidate(BlockPos pos) {
+        if (this.sections.remove(SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4)) != null)
+            this.version++;
+    }
+
+    public void invalidate(ChunkPos pos) {
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            this.sections.remove(SectionPos.asLong(pos.x, sectionY, pos.z));
+        }
+        this.version++;
+    }
+
+    public void clear() {
+        this.sections.clear();
+        this.version++;
+    }
+
+    protected int[] findPositions(ChunkSection section) {
+        //the palette contains every state in the section, most sections have no otherworld blocks at all.
+        if (ChunkSection.isEmpty(section) ||
+            !section.isValidPOIState(state -> state.getBlock() instanceof IOtherworldBlock))
+            return EMPTY;
+
+        int[] positions = new int[16];
+        int count = 0;
+        for (int packed = 0; packed < 4096; packed++) {
+            if (section.getBlockState(getLocalX(packed), getLocalY(packed), getLocalZ(packed))
+                        .getBlock() instanceof IOtherworldBlock) {
+                if (count == positions.length)
+                    positions = Arrays.copyOf(positions, count * 2);
+                positions[count++] = packed;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+    //endregion Methods
+}
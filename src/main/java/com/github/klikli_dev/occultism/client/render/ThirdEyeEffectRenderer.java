@@ -39,14 +39,18 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.potion.EffectInstance;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.client.event.RenderGameOverlayEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.lwjgl.opengl.GL11;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 public class ThirdEyeEffectRenderer {
 
@@ -62,6 +66,12 @@ public class ThirdEyeEffectRenderer {
     public boolean gogglesActiveLastTick = false;
 
     public Set<BlockPos> uncoveredBlocks = new HashSet<>();
+
+    protected final OtherworldBlockCache otherworldBlockCache = new OtherworldBlockCache();
+    //the view the uncovered blocks were last computed for, to skip ticks where nothing changed.
+    protected BlockPos uncoveredOrigin;
+    protected OtherworldBlockTier uncoveredLevel;
+    protected int uncoveredCacheVersion;
     //endregion Fields
 
     //region Static Methods
@@ -102,6 +112,33 @@ public class ThirdEyeEffectRenderer {
         }
     }
 
+    @SubscribeEvent
+    public void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        if (event.getWorld().isRemote())
+            this.otherworldBlockCache.invalidate(event.getPos());
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event) {
+        if (event.getWorld() != null && event.getWorld().isRemote())
+            this.otherworldBlockCache.invalidate(event.getChunk().getPos());
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getWorld() != null && event.getWorld().isRemote())
+            this.otherworldBlockCache.invalidate(event.getChunk().getPos());
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote()) {
+            this.otherworldBlockCache.clear();
+            this.uncoveredBlocks.clear();
+            this.uncoveredOrigin = null;
+        }
+    }
+
     @SubscribeEvent
     public void onPreRenderOverlay(RenderGameOverlayEvent.Pre event) {
         //TODO: Remove this hack once MC fixes shader rendering on their own
@@ -137,35 +174,109 @@ public class ThirdEyeEffectRenderer {
      * @param clear true to delete the list of uncovered blocks.
      */
     public void resetUncoveredBlocks(World world, boolean clear){
-        for(BlockPos pos : this.uncoveredBlocks) {
-            BlockState state = world.getBlockState(pos);
-            if(state.getBlock() instanceof IOtherworldBlock) //handle replaced or removed blocks gracefully
-                world.setBlockState(pos, state.with(IOtherworldBlock.UNCOVERED, false), 1);
-        }
+        this.updateUncoveredStates(world, this.uncoveredBlocks, Collections.emptySet());
         if(clear)
             this.uncoveredBlocks.clear();
+        this.uncoveredOrigin = null;
     }
 
     /**
-     * Uncovers the otherworld blocks within MAX_THIRD_EYE_DISTANCE of the player.
+     * Uncovers the otherworld blocks within MAX_THIRD_EYE_DISTANCE of the player, and covers previously uncovered
+     * blocks that are no longer in range.
      * @param player the player.
      * @param world the world.
      */
     public void uncoverBlocks(PlayerEntity player, World world, OtherworldBlockTier level){
         BlockPos origin = player.getPosition();
-        BlockPos.getAllInBoxMutable(origin.add(-MAX_THIRD_EYE_DISTANCE, -MAX_THIRD_EYE_DISTANCE, -MAX_THIRD_EYE_DISTANCE),
-                origin.add(MAX_THIRD_EYE_DISTANCE,MAX_THIRD_EYE_DISTANCE,MAX_THIRD_EYE_DISTANCE)).forEach(pos -> {
-            BlockState state = world.getBlockState(pos);
-            if(state.getBlock() instanceof IOtherworldBlock){
-                IOtherworldBlock block = (IOtherworldBlock) state.getBlock();
-                if(block.getTier().getLevel()  <= level.getLevel()){
-                    if(!state.get(IOtherworldBlock.UNCOVERED)){
-                        world.setBlockState(pos, state.with(IOtherworldBlock.UNCOVERED, true), 1);
+        if(origin.equals(this.uncoveredOrigin) && level == this.uncoveredLevel &&
+           this.uncoveredCacheVersion == this.otherworldBlockCache.getVersion())
+            return; //nothing changed since the last tick
+
+        BlockPos min = origin.add(-MAX_THIRD_EYE_DISTANCE, -MAX_THIRD_EYE_DISTANCE, -MAX_THIRD_EYE_DISTANCE);
+        BlockPos max = origin.add(MAX_THIRD_EYE_DISTANCE, MAX_THIRD_EYE_DISTANCE, MAX_THIRD_EYE_DISTANCE);
+        Set<BlockPos> visibleBlocks = new HashSet<>();
+        for (int sectionX = min.getX() >> 4; sectionX <= max.getX() >> 4; sectionX++) {
+            for (int sectionY = min.getY() >> 4; sectionY <= max.getY() >> 4; sectionY++) {
+                for (int sectionZ = min.getZ() >> 4; sectionZ <= max.getZ() >> 4; sectionZ++) {
+                    for (int packed : this.otherworldBlockCache.getPositions(world, sectionX, sectionY, sectionZ)) {
+                        int x = (sectionX << 4) + OtherworldBlockCache.getLocalX(packed);
+                        int y = (sectionY << 4) + OtherworldBlockCache.getLocalY(packed);
+                        int z = (sectionZ << 4) + OtherworldBlockCache.getLocalZ(packed);
+                        if (x < min.getX() || x > max.getX() || y < min.getY() || y > max.getY() ||
+                            z < min.getZ() || z > max.getZ())
+                            continue;
+
+                        BlockPos pos = new BlockPos(x, y, z);
+                        BlockState state = world.getBlockState(pos);
+                        if (state.getBlock() instanceof IOtherworldBlock &&
+                            ((IOtherworldBlock) state.getBlock()).getTier().getLevel() <= level.getLevel())
+                            visibleBlocks.add(pos);
                     }
-                    this.uncoveredBlocks.add(pos.toImmutable());
                 }
             }
-        });
+        }
+
+        //visible blocks that are already uncovered are skipped when updating, so this only changes blocks entering
+        //or leaving the view (or blocks that were reset in between).
+        Set<BlockPos> changedBlocks = new HashSet<>(visibleBlocks);
+        for (BlockPos pos : this.uncoveredBlocks) {
+            if (!visibleBlocks.contains(pos))
+                changedBlocks.add(pos);
+        }
+        this.updateUncoveredStates(world, changedBlocks, visibleBlocks);
+
+        this.uncoveredBlocks = visibleBlocks;
+        this.uncoveredOrigin = origin;
+        this.uncoveredLevel = level;
+        this.uncoveredCacheVersion = this.otherworldBlockCache.getVersion();
+    }
+
+    /**
+     * Sets the uncovered state of the given blocks, grouped by chunk section so each section only needs to be
+     * re-rendered once.
+     * @param world the world.
+     * @param blocks the blocks to update.
+     * @param uncoveredBlocks the blocks that should be uncovered, all others will be covered.
+     */
+    protected void updateUncoveredStates(World world, Collection<BlockPos> blocks, Set<BlockPos> uncoveredBlocks) {
+        Map<Long, List<BlockPos>> blocksBySection = new HashMap<>();
+        for (BlockPos pos : blocks) {
+            blocksBySection.computeIfAbsent(SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4),
+                    k -> new ArrayList<>()).add(pos);
+        }
+
+        for (List<BlockPos> sectionBlocks : blocksBySection.values()) {
+            BlockPos first = sectionBlocks.get(0);
+            Chunk chunk = world.getChunkProvider().getChunk(first.getX() >> 4, first.getZ() >> 4, false);
+            if (chunk == null)
+                continue;
+
+            BlockPos min = null;
+            BlockPos max = null;
+            for (BlockPos pos : sectionBlocks) {
+                BlockState state = chunk.getBlockState(pos);
+                boolean uncovered = uncoveredBlocks.contains(pos);
+                //handle replaced or removed blocks gracefully
+                if (!(state.getBlock() instanceof IOtherworldBlock) || state.get(IOtherworldBlock.UNCOVERED) == uncovered)
+                    continue;
+
+                //set on the chunk directly, the render update is done once for the whole section below.
+                BlockState newState = state.with(IOtherworldBlock.UNCOVERED, uncovered);
+                chunk.setBlockState(pos, newState, false);
+                if (state.getOpacity(world, pos) != newState.getOpacity(world, pos) ||
+                    state.getLightValue(world, pos) != newState.getLightValue(world, pos))
+                    world.getChunkProvider().getLightManager().checkBlock(pos);
+
+                min = min == null ? pos : new BlockPos(Math.min(min.getX(), pos.getX()),
+                        Math.min(min.getY(), pos.getY()), Math.min(min.getZ(), pos.getZ()));
+                max = max == null ? pos : new BlockPos(Math.max(max.getX(), pos.getX()),
+                        Math.max(max.getY(), pos.getY()), Math.max(max.getZ(), pos.getZ()));
+            }
+
+            if (min != null)
+                Minecraft.getInstance().worldRenderer.markBlockRangeForRenderUpdate(min.getX(), min.getY(), min.getZ(),
+                        max.getX(), max.getY(), max.getZ());
+        }
     }
 
     public void onThirdEyeTick(TickEvent.PlayerTickEvent event) {
@@ -217,12 +328,14 @@ public class ThirdEyeEffectRenderer {
                 this.gogglesActiveLastTick = false;
             }
 
-            //only cover blocks if third eye is not active and still needs them visible.
-            this.resetUncoveredBlocks(event.player.world, true);
             if(this.thirdEyeActiveLastTick){
-                //this uncovers tier 1 blocks that we still can see under normal third eye
+                //this covers tier 2 blocks, but keeps the tier 1 blocks that we still can see under normal third eye
                 this.uncoverBlocks(event.player, event.player.world, OtherworldBlockTier.ONE);
             }
+            else {
+                //only cover blocks if third eye is not active and still needs them visible.
+                this.resetUncoveredBlocks(event.player.world, true);
+            }
         }
     }
 }
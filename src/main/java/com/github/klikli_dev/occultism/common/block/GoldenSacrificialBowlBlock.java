@@ -22,6 +22,7 @@
 
 package com.github.klikli_dev.occultism.common.block;
 
+import com.github.klikli_dev.occultism.common.ritual.ActiveRitualRegistry;
 import com.github.klikli_dev.occultism.common.ritual.Ritual;
 import com.github.klikli_dev.occultism.common.tile.GoldenSacrificialBowlTileEntity;
 import com.github.klikli_dev.occultism.registry.OccultismTiles;
@@ -113,16 +114,10 @@ public class GoldenSacrificialBowlBlock extends Block {
     public void onPlayerRightClickItem(PlayerInteractEvent.RightClickItem event) {
         PlayerEntity player = event.getPlayer();
         if (!player.world.isRemote) {
-            BlockPos pos = player.getPosition();
-            int range = Ritual.ITEM_USE_DETECTION_RANGE;
-            for (BlockPos positionToCheck : BlockPos.getAllInBoxMutable(pos.add(-range, -range, -range),
-                    pos.add(range, range, range))) {
-                TileEntity tileEntity = player.world.getTileEntity(positionToCheck);
-                if (tileEntity instanceof GoldenSacrificialBowlTileEntity) {
-                    GoldenSacrificialBowlTileEntity bowl = (GoldenSacrificialBowlTileEntity) tileEntity;
-                    if (bowl.currentRitualRecipe != null && bowl.currentRitualRecipe.getRitual().isValidItemUse(event)) {
-                        bowl.notifyItemUse(event);
-                    }
+            for (GoldenSacrificialBowlTileEntity bowl : ActiveRitualRegistry.get(player.world, player.getPosition(),
+                    Ritual.ITEM_USE_DETECTION_RANGE)) {
+                if (bowl.currentRitualRecipe != null && bowl.currentRitualRecipe.getRitual().isValidItemUse(event)) {
+                    bowl.notifyItemUse(event);
                 }
             }
         }
@@ -134,16 +129,10 @@ public class GoldenSacrificialBowlBlock extends Block {
         if (!entityLivingBase.world.isRemote) {
             //Limit to player kills
             if(event.getSource().getTrueSource() instanceof PlayerEntity){
-                BlockPos pos = entityLivingBase.getPosition();
-                int range = Ritual.SACRIFICE_DETECTION_RANGE;
-                for (BlockPos positionToCheck : BlockPos.getAllInBoxMutable(pos.add(-range, -range, -range),
-                        pos.add(range, range, range))) {
-                    TileEntity tileEntity = entityLivingBase.world.getTileEntity(positionToCheck);
-                    if (tileEntity instanceof GoldenSacrificialBowlTileEntity) {
-                        GoldenSacrificialBowlTileEntity bowl = (GoldenSacrificialBowlTileEntity) tileEntity;
-                        if (bowl.currentRitualRecipe != null && bowl.currentRitualRecipe.getRitual().isValidSacrifice(entityLivingBase)) {
-                            bowl.notifySacrifice(entityLivingBase);
-                        }
+                for (GoldenSacrificialBowlTileEntity bowl : ActiveRitualRegistry.get(entityLivingBase.world,
+                        entityLivingBase.getPosition(), Ritual.SACRIFICE_DETECTION_RANGE)) {
+                    if (bowl.currentRitualRecipe != null && bowl.currentRitualRecipe.getRitual().isValidSacrifice(entityLivingBase)) {
+                        bowl.notifySacrifice(entityLivingBase);
                     }
                 }
             }
@@ -25,17 +25,13 @@ package com.github.klikli_dev.occultism.common.container.storage;
 import com.github.klikli_dev.occultism.client.gui.storage.StorageControllerGuiBase;
 import com.github.klikli_dev.occultism.common.misc.StorageControllerCraftingInventory;
 import com.github.klikli_dev.occultism.common.tile.StorageControllerTileEntity;
-import com.github.klikli_dev.occultism.network.MessageUpdateLinkedMachines;
-import com.github.klikli_dev.occultism.network.OccultismPackets;
 import com.github.klikli_dev.occultism.registry.OccultismContainers;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.World;
 
 
 public class StorageControllerContainer extends StorageControllerContainerBase {
@@ -107,13 +103,6 @@ public class StorageControllerContainer extends StorageControllerContainerBase {
     public boolean canInteractWith(PlayerEntity player) {
         if (this.storageController == null)
             return false;
-        World world = this.storageController.getWorld();
-        //send stack updates on a slow tick while interacting
-        if (!world.isRemote && world.getGameTime() % 40 == 0) {
-            OccultismPackets.sendTo((ServerPlayerEntity) player, this.storageController.getMessageUpdateStacks());
-            OccultismPackets.sendTo((ServerPlayerEntity) player,
-                    new MessageUpdateLinkedMachines(this.storageController.getLinkedMachines()));
-        }
         BlockPos controllerPosition = this.storageController.getPos();
         return player.getDistanceSq(controllerPosition.getX() + 0.5D, controllerPosition.getY() + 0.5D,
                 controllerPosition.getZ() + 0.5D) <= 64.0D;
@@ -26,10 +26,11 @@ import com.github.klikli_dev.occultism.api.common.container.IStorageControllerCo
 import com.github.klikli_dev.occultism.api.common.data.GlobalBlockPos;
 import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
 import com.github.klikli_dev.occultism.client.gui.storage.StorageControllerGuiBase;
+import com.github.klikli_dev.occultism.crafting.recipe.CraftingRecipeCache;
 import com.github.klikli_dev.occultism.common.misc.ItemStackComparator;
+import com.github.klikli_dev.occultism.common.misc.ItemStackKey;
 import com.github.klikli_dev.occultism.common.misc.StorageControllerCraftingInventory;
 import com.github.klikli_dev.occultism.common.misc.StorageControllerSlot;
-import com.github.klikli_dev.occultism.network.OccultismPackets;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.entity.player.ServerPlayerEntity;
@@ -42,7 +43,6 @@ import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.ICraftingRecipe;
-import net.minecraft.item.crafting.IRecipeType;
 import net.minecraft.network.play.server.SSetSlotPacket;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.NonNullList;
@@ -51,7 +51,9 @@ import net.minecraftforge.items.wrapper.PlayerMainInvWrapper;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public abstract class StorageControllerContainerBase extends Container implements IStorageControllerContainer {
@@ -142,7 +144,7 @@ public abstract class StorageControllerContainerBase extends Container implement
                 this.detectAndSendChanges();
 
                 //get updated stacks from storage controller and send to client
-                OccultismPackets.sendTo((ServerPlayerEntity) player, storageController.getMessageUpdateStacks());
+                storageController.sendStacksTo((ServerPlayerEntity) player);
 
                 if (!remainingItemStack.isEmpty()) {
                     slot.onTake(player, slotStack);
@@ -157,6 +159,10 @@ public abstract class StorageControllerContainerBase extends Container implement
     public void onContainerClosed(PlayerEntity playerIn) {
         this.updateCraftingSlots(false);
         this.updateOrderSlot(true); //only send network update on second call
+
+        IStorageController storageController = this.getStorageController();
+        if (!playerIn.world.isRemote && storageController != null)
+            storageController.removeStackViewer(playerIn.getUniqueID());
         super.onContainerClosed(playerIn);
     }
 
@@ -204,8 +210,10 @@ public abstract class StorageControllerContainerBase extends Container implement
     protected abstract void setupPlayerHotbar();
 
     protected void findRecipeForMatrixClient() {
-        Optional<ICraftingRecipe> optional =
-                this.player.world.getRecipeManager().getRecipe(IRecipeType.CRAFTING, this.matrix, this.player.world);
+        //the last recipe usually still matches, e.g. while shift crafting
+        if (this.currentRecipe != null && this.currentRecipe.matches(this.matrix, this.player.world))
+            return;
+        Optional<ICraftingRecipe> optional = CraftingRecipeCache.findRecipe(this.player.world, this.matrix);
         optional.ifPresent(iCraftingRecipe -> this.currentRecipe = iCraftingRecipe);
     }
 
@@ -213,12 +221,14 @@ public abstract class StorageControllerContainerBase extends Container implement
         //TODO: if there are issues, set up a copy of this based on WorkBenchContainer func_217066_a / updateCraftingResult
         //      and call it onCraftingMatrixChanged(). Send slot packet!
         if (!this.player.world.isRemote) {
+            ICraftingRecipe lastRecipe = this.currentRecipe;
             this.currentRecipe = null;
             ServerPlayerEntity serverplayerentity = (ServerPlayerEntity) this.player;
             ItemStack itemstack = ItemStack.EMPTY;
-            Optional<ICraftingRecipe> optional = this.player.world.getServer().getRecipeManager()
-                    .getRecipe(IRecipeType.CRAFTING, this.matrix,
-                            this.player.world);
+            //check the last recipe first, it usually still matches if the matrix was refilled
+            boolean lastRecipeMatches = lastRecipe != null && lastRecipe.matches(this.matrix, this.player.world);
+            Optional<ICraftingRecipe> optional = lastRecipeMatches ? Optional.of(lastRecipe) :
+                                                 CraftingRecipeCache.findRecipe(this.player.world, this.matrix);
             if (optional.isPresent()) {
                 ICraftingRecipe icraftingrecipe = optional.get();
                 if (this.result.canUseRecipe(this.player.world, serverplayerentity, icraftingrecipe)) {
@@ -257,6 +267,175 @@ public abstract class StorageControllerContainerBase extends Container implement
             return;
         }
 
+        //most recipes consume one item per slot and craft, those can be planned and crafted in one go.
+        if (!this.craftShiftBatched(player, storageController, recipeCopy, result)) {
+            ItemHandlerHelper.giveItemToPlayer(player, this.craftShiftIterative(player, recipeCopy, result));
+        }
+
+        this.detectAndSendChanges();
+
+        //unlock crafting matrix
+        this.recipeLocked = false;
+
+        //update crafting matrix to handle container items / items that survive crafting
+        this.onCraftMatrixChanged(this.matrix);
+        this.getStorageController().sendStacksTo((ServerPlayerEntity) player);
+
+    }
+
+    /**
+     * Plans the achievable number of crafts up front and crafts them in one go.
+     * Each ingredient is extracted from storage with a single call and stackable container items are returned to the
+     * player in bulk. The results are given first, so container items cannot take the inventory space planned for them.
+     * Only possible if every craft consumes exactly one item per filled slot, recipes with items that stay in the
+     * crafting matrix (non-stackable containers, durability items) return false and need to be crafted one by one.
+     *
+     * @param player            the crafting player.
+     * @param storageController the storage controller to refill the matrix from.
+     * @param recipeCopy        the matrix contents before crafting.
+     * @param result            the result of a single craft.
+     * @return true if the crafts were handled, false if the recipe cannot be crafted in a batch.
+     */
+    protected boolean craftShiftBatched(PlayerEntity player, IStorageController storageController,
+                                        List<ItemStack> recipeCopy, ItemStack result) {
+        if (storageController == null || !this.currentRecipe.matches(this.matrix, player.world)) {
+            return false;
+        }
+
+        //collect the container items returned per craft, bail out for anything that would remain in the matrix
+        int matrixSize = this.matrix.getSizeInventory();
+        NonNullList<ItemStack> remainingCraftingItems = this.currentRecipe.getRemainingItems(this.matrix);
+        List<ItemStack> containerItems = new ArrayList<>();
+        for (int i = 0; i < matrixSize; i++) {
+            if (remainingCraftingItems.get(i).isEmpty())
+                continue;
+            ItemStack stackInSlot = this.matrix.getStackInSlot(i);
+            ItemStack container = stackInSlot.getItem().getContainerItem(stackInSlot);
+            if (container.isEmpty() || !stackInSlot.isStackable())
+                return false;
+            containerItems.add(container);
+        }
+
+        //group the matrix slots by ingredient, so slots sharing an ingredient share the storage count
+        Map<ItemStackKey, List<Integer>> slotsByIngredient = new LinkedHashMap<>();
+        for (int i = 0; i < matrixSize; i++) {
+            ItemStack recipeStack = recipeCopy.get(i);
+            if (!recipeStack.isEmpty())
+                slotsByIngredient.computeIfAbsent(ItemStackKey.of(recipeStack), key -> new ArrayList<>()).add(i);
+        }
+
+        //limit crafts to one result stack and to what fits into the player inventory
+        int resultStackSize = result.getCount();
+        int crafts = result.getMaxStackSize() / resultStackSize;
+        ItemStack allResults = ItemHandlerHelper.copyStackWithSize(result, crafts * resultStackSize);
+        ItemStack notInserted = ItemHandlerHelper.insertItemStacked(new PlayerMainInvWrapper(this.playerInventory),
+                allResults, true);
+        crafts = Math.min(crafts, (allResults.getCount() - notInserted.getCount()) / resultStackSize);
+
+        //limit crafts to the ingredients in the matrix and in storage
+        for (List<Integer> slots : slotsByIngredient.values()) {
+            if (crafts <= 0)
+                break;
+            ItemStackComparator comparator = new ItemStackComparator(recipeCopy.get(slots.get(0)));
+            int available = storageController.getItemStack(comparator, crafts * slots.size(), true).getCount();
+            while (crafts > 0 && this.getMissingIngredients(slots, crafts) > available) {
+                crafts--;
+            }
+        }
+        if (crafts <= 0) {
+            return true;
+        }
+
+        //extract each ingredient once, including one item per slot to refill the matrix for the next craft
+        List<ItemStack> extractedStacks = new ArrayList<>();
+        for (List<Integer> slots : slotsByIngredient.values()) {
+            ItemStack recipeStack = recipeCopy.get(slots.get(0));
+            int missing = this.getMissingIngredients(slots, crafts);
+            int refills = 0;
+            for (int slot : slots) {
+                if (this.matrix.getStackInSlot(slot).getCount() <= crafts)
+                    refills++;
+            }
+            ItemStack extracted = storageController.getItemStack(new ItemStackComparator(recipeStack),
+                    missing + refills, false);
+            extractedStacks.add(extracted);
+
+            //never craft more than was actually extracted, even if the simulation promised more
+            while (crafts > 0 && this.getMissingIngredients(slots, crafts) > extracted.getCount()) {
+                crafts--;
+            }
+        }
+
+        //give the results first, the space for them was checked above
+        ItemHandlerHelper.giveItemToPlayer(player,
+                ItemHandlerHelper.copyStackWithSize(result, crafts * resultStackSize));
+
+        //consume the ingredients, refill emptied slots and put back what is left
+        int ingredientIndex = 0;
+        for (List<Integer> slots : slotsByIngredient.values()) {
+            ItemStack extracted = extractedStacks.get(ingredientIndex++);
+            int remainingRefills = extracted.getCount() - this.getMissingIngredients(slots, crafts);
+
+            for (int slot : slots) {
+                ItemStack stackInSlot = this.matrix.getStackInSlot(slot);
+                if (stackInSlot.getCount() > crafts) {
+                    stackInSlot.shrink(crafts);
+                } else if (remainingRefills > 0) {
+                    this.matrix.setInventorySlotContents(slot, ItemHandlerHelper.copyStackWithSize(extracted, 1));
+                    remainingRefills--;
+                } else {
+                    this.matrix.setInventorySlotContents(slot, ItemStack.EMPTY);
+                }
+            }
+
+            if (remainingRefills > 0) {
+                int notInserted = storageController.insertStack(
+                        ItemHandlerHelper.copyStackWithSize(extracted, remainingRefills), false);
+                if (notInserted > 0)
+                    ItemHandlerHelper.giveItemToPlayer(player,
+                            ItemHandlerHelper.copyStackWithSize(extracted, notInserted));
+            }
+        }
+
+        //return the container items of all crafts
+        for (ItemStack container : containerItems) {
+            int remaining = container.getCount() * crafts;
+            while (remaining > 0) {
+                int count = Math.min(remaining, container.getMaxStackSize());
+                ItemHandlerHelper.giveItemToPlayer(player, ItemHandlerHelper.copyStackWithSize(container, count));
+                remaining -= count;
+            }
+        }
+
+        this.onCraftMatrixChanged(this.matrix);
+        return true;
+    }
+
+    /**
+     * Gets how many items of an ingredient need to be taken from storage for the given number of crafts.
+     *
+     * @param slots  the matrix slots holding the ingredient.
+     * @param crafts the number of crafts.
+     * @return the amount of items missing in the matrix.
+     */
+    protected int getMissingIngredients(List<Integer> slots, int crafts) {
+        int missing = 0;
+        for (int slot : slots) {
+            missing += Math.max(0, crafts - this.matrix.getStackInSlot(slot).getCount());
+        }
+        return missing;
+    }
+
+    /**
+     * Crafts one result at a time, refilling the matrix from storage after each craft.
+     * Used for recipes that modify the matrix beyond consuming one item per slot.
+     *
+     * @param player     the crafting player.
+     * @param recipeCopy the matrix contents before crafting.
+     * @param result     the result of a single craft.
+     * @return the merged crafting results.
+     */
+    protected ItemStack craftShiftIterative(PlayerEntity player, List<ItemStack> recipeCopy, ItemStack result) {
         //get the stack size of the result
         int resultStackSize = result.getCount();
         List<ItemStack> resultList = new ArrayList<>();
@@ -356,22 +535,12 @@ public abstract class StorageControllerContainerBase extends Container implement
             this.onCraftMatrixChanged(this.matrix);
         }
 
-        //now actually give to the players
+        //merge the results to give them to the player at once
         ItemStack finalResult = new ItemStack(result.getItem(), 0);
         for (ItemStack intermediateResult : resultList) {
             finalResult.setCount(finalResult.getCount() + intermediateResult.getCount());
         }
-        ItemHandlerHelper.giveItemToPlayer(player, finalResult);
-
-        this.detectAndSendChanges();
-
-        //unlock crafting matrix
-        this.recipeLocked = false;
-
-        //update crafting matrix to handle container items / items that survive crafting
-        this.onCraftMatrixChanged(this.matrix);
-        OccultismPackets.sendTo((ServerPlayerEntity) player, this.getStorageController().getMessageUpdateStacks());
-
+        return finalResult;
     }
     //endregion Methods
 }
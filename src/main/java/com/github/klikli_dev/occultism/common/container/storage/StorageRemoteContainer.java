@@ -27,13 +27,10 @@ import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
 import com.github.klikli_dev.occultism.client.gui.storage.StorageControllerGuiBase;
 import com.github.klikli_dev.occultism.common.item.storage.StorageRemoteItem;
 import com.github.klikli_dev.occultism.common.misc.StorageControllerCraftingInventory;
-import com.github.klikli_dev.occultism.network.MessageUpdateLinkedMachines;
-import com.github.klikli_dev.occultism.network.OccultismPackets;
 import com.github.klikli_dev.occultism.registry.OccultismContainers;
 import com.github.klikli_dev.occultism.util.CuriosUtil;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
@@ -130,16 +127,6 @@ public class StorageRemoteContainer extends StorageControllerContainerBase {
 
     @Override
     public boolean canInteractWith(PlayerEntity entityPlayer) {
-        IStorageController storageController = this.getStorageController();
-        //canInteractWith is constantly called, so we use it to send
-        //stack updates every 40 ticks.
-        if (storageController != null && !entityPlayer.world.isRemote &&
-                entityPlayer.world.getGameTime() % 40 == 0) {
-            OccultismPackets.sendTo((ServerPlayerEntity) this.player, this.getStorageController().getMessageUpdateStacks());
-            OccultismPackets.sendTo((ServerPlayerEntity) this.player,
-                    new MessageUpdateLinkedMachines(this.getStorageController().getLinkedMachines()));
-        }
-
         return this.getStorageRemote() != ItemStack.EMPTY;
     }
 
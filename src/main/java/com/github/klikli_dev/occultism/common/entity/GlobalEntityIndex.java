@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.entity;
+
+import com.github.klikli_dev.occultism.Occultism;
+import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Server wide index of loaded spirits, familiars and players by uuid, across all dimensions.
+ * Occultism looks these up by uuid on busy paths (e.g. deposit orders, casting players of rituals), and scanning every
+ * world for each lookup gets expensive with many dimensions.
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class GlobalEntityIndex {
+
+    //region Fields
+    protected static final Map<UUID, Entity> ENTITIES = new HashMap<>();
+    //endregion Fields
+
+    //region Static Methods
+
+    /**
+     * Gets the loaded entity with the given uuid, if it is indexed.
+     * Call on server only!
+     *
+     * @param uuid the uuid of the entity.
+     * @return the entity, or null if no such entity is loaded.
+     */
+    public static Entity get(UUID uuid) {
+        Entity entity = ENTITIES.get(uuid);
+        return entity != null && entity.isAlive() ? entity : null;
+    }
+
+    /**
+     * Checks if entities of the given type are tracked by this index.
+     *
+     * @param entity the entity to check.
+     * @return true if the entity is a spirit, familiar or player.
+     */
+    public static boolean isIndexed(Entity entity) {
+        return entity instanceof SpiritEntity || entity instanceof IFamiliar || entity instanceof ServerPlayerEntity;
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        if (!event.getWorld().isRemote && isIndexed(event.getEntity()))
+            ENTITIES.put(event.getEntity().getUniqueID(), event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        //when changing dimensions the copy in the new world may join before the old entity leaves, so only remove
+        //the entry if it still points at the leaving entity.
+        if (!event.getWorld().isRemote && isIndexed(event.getEntity()))
+            ENTITIES.remove(event.getEntity().getUniqueID(), event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote())
+            ENTITIES.values().removeIf(entity -> entity.world == event.getWorld());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        ENTITIES.clear();
+    }
+    //endregion Static Methods
+}
@@ -43,6 +43,7 @@ import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.IItemHandlerModifiable;
 import net.minecraftforge.items.ItemHandlerHelper;
 
 import java.util.EnumSet;
@@ -135,19 +136,36 @@ public class DepositItemsGoal extends PausableGoal {
                         return;
                     }
                     IItemHandler handler = handlerCapability.orElseThrow(ItemHandlerMissingException::new);
-                    ItemStack duplicate = this.entity.getHeldItem(Hand.MAIN_HAND).copy();
+                    IItemHandler entityHandler =
+                            this.entity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.DOWN)
+                                    .orElseThrow(ItemHandlerMissingException::new);
 
-                    //simulate insertion
-                    ItemStack toInsert = ItemHandlerHelper.insertItem(handler, duplicate, true);
-                    //if anything was inserted go for real
-                    if (toInsert.getCount() != duplicate.getCount()) {
-                        ItemStack leftover = ItemHandlerHelper.insertItem(handler, duplicate, false);
+                    boolean insertedAny = false;
+                    boolean insertedAll = true;
+                    for (int i = 0; i < entityHandler.getSlots(); i++) {
+                        ItemStack duplicate = entityHandler.getStackInSlot(i).copy();
+                        if (duplicate.isEmpty())
+                            continue;
+
+                        //simulate insertion
+                        ItemStack toInsert = ItemHandlerHelper.insertItem(handler, duplicate, true);
+                        //if anything was inserted go for real
+                        if (toInsert.getCount() != duplicate.getCount()) {
+                            ItemStack leftover = ItemHandlerHelper.insertItem(handler, duplicate, false);
+                            this.setInventoryStack(entityHandler, i, leftover);
+                            insertedAny = true;
+                        }
+                        insertedAll &= toInsert.isEmpty();
+                    }
+
+                    if (insertedAny) {
                         //if we inserted everything
-                        this.entity.setHeldItem(Hand.MAIN_HAND, leftover);
-                        if (toInsert.isEmpty()) {
+                        if (insertedAll) {
                             this.moveTarget = null;
                             this.resetTask();
                         } else {
+                            //keep the remaining stacks in hand, so the spirit keeps trying to deposit them
+                            this.compactInventory(entityHandler);
                             //pause ai to retry again in a little while.
                             this.pause(2000);
                         }
@@ -166,6 +184,32 @@ public class DepositItemsGoal extends PausableGoal {
     //endregion Overrides
 
     //region Methods
+
+    /**
+     * Moves the first remaining stack of the spirit inventory to the main hand if the main hand is empty.
+     *
+     * @param entityHandler the spirit inventory.
+     */
+    public void compactInventory(IItemHandler entityHandler) {
+        if (!entityHandler.getStackInSlot(0).isEmpty())
+            return;
+        for (int i = 1; i < entityHandler.getSlots(); i++) {
+            ItemStack stack = entityHandler.getStackInSlot(i);
+            if (!stack.isEmpty()) {
+                this.setInventoryStack(entityHandler, i, ItemStack.EMPTY);
+                this.setInventoryStack(entityHandler, 0, stack);
+                return;
+            }
+        }
+    }
+
+    protected void setInventoryStack(IItemHandler entityHandler, int slot, ItemStack stack) {
+        if (slot == 0)
+            this.entity.setHeldItem(Hand.MAIN_HAND, stack);
+        else
+            ((IItemHandlerModifiable) entityHandler).setStackInSlot(slot, stack);
+    }
+
     public boolean canSeeTarget() {
 
         RayTraceContext context = new RayTraceContext(this.entity.getPositionVec(),
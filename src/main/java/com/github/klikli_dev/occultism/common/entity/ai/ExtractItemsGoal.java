@@ -23,9 +23,9 @@
 package com.github.klikli_dev.occultism.common.entity.ai;
 
 import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
+import com.github.klikli_dev.occultism.common.misc.ItemFilter;
 import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
 import com.github.klikli_dev.occultism.util.Math3DUtil;
-import com.github.klikli_dev.occultism.util.StorageUtil;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.ChestTileEntity;
@@ -48,6 +48,10 @@ public class ExtractItemsGoal extends PausableGoal {
     protected final SpiritEntity entity;
     protected final BlockSorter targetSorter;
     protected BlockPos targetBlock = null;
+    /**
+     * The slot of the target to continue searching for matching items from.
+     */
+    protected int nextSlot = 0;
     //endregion Fields
 
     //region Initialization
@@ -137,20 +141,7 @@ public class ExtractItemsGoal extends PausableGoal {
                             this.entity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.DOWN)
                                     .orElseThrow(ItemHandlerMissingException::new);
 
-                    int slot = StorageUtil.getFirstMatchingSlot(tileHandler,
-                            this.entity.getFilterItems().orElseThrow(ItemHandlerMissingException::new), this.entity.getTagFilter(), this.entity.isFilterBlacklist());
-                    if (slot >= 0) {
-                        //simulate extraction
-                        ItemStack toExtract = tileHandler.extractItem(slot, Integer.MAX_VALUE, true).copy();
-                        if (!toExtract.isEmpty()) {
-                            ItemStack remaining = ItemHandlerHelper.insertItem(entityHandler, toExtract, true);
-                            if (remaining.getCount() < toExtract.getCount()) {
-                                //if simulation went well, do for real
-                                ItemStack extracted = tileHandler.extractItem(slot, toExtract.getCount() - remaining.getCount(), false);
-                                ItemHandlerHelper.insertItem(entityHandler, extracted, false);
-                            }
-                        }
-                    }
+                    this.extractItems(tileHandler, entityHandler);
 
                     //after extracting, close chest
                     if (tileEntity instanceof IInventory) {
@@ -166,6 +157,45 @@ public class ExtractItemsGoal extends PausableGoal {
     //endregion Overrides
 
     //region Methods
+
+    /**
+     * Extracts matching stacks from the target into the spirit inventory, until no more stacks fit.
+     * The search resumes from the slot after the last extracted slot and wraps around once.
+     *
+     * @param tileHandler   the handler of the target.
+     * @param entityHandler the spirit inventory.
+     */
+    public void extractItems(IItemHandler tileHandler, IItemHandler entityHandler) {
+        int slots = tileHandler.getSlots();
+        int start = this.nextSlot < slots ? this.nextSlot : 0;
+        ItemFilter filter = this.entity.getItemFilter();
+        boolean isBlacklist = this.entity.isFilterBlacklist();
+
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            ItemStack stack = tileHandler.getStackInSlot(slot);
+            if (stack.isEmpty() || !filter.isAllowed(stack, isBlacklist))
+                continue;
+
+            //simulate extraction
+            ItemStack toExtract = tileHandler.extractItem(slot, Integer.MAX_VALUE, true).copy();
+            if (toExtract.isEmpty())
+                continue;
+            ItemStack remaining = ItemHandlerHelper.insertItem(entityHandler, toExtract, true);
+            if (remaining.getCount() < toExtract.getCount()) {
+                //if simulation went well, do for real
+                ItemStack extracted = tileHandler.extractItem(slot, toExtract.getCount() - remaining.getCount(), false);
+                ItemHandlerHelper.insertItem(entityHandler, extracted, false);
+                this.nextSlot = slot + 1;
+            }
+            if (!remaining.isEmpty()) {
+                //spirit inventory is full, continue with the rest of this slot next time
+                this.nextSlot = slot;
+                return;
+            }
+        }
+    }
+
     public boolean canSeeTarget() {
 
         RayTraceContext context = new RayTraceContext(this.entity.getPositionVec(),
@@ -22,19 +22,15 @@
 
 package com.github.klikli_dev.occultism.common.entity.ai;
 
-import com.github.klikli_dev.occultism.api.common.tile.IStorageControllerProxy;
 import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
 import com.github.klikli_dev.occultism.common.job.ManageMachineJob;
+import com.github.klikli_dev.occultism.common.tile.StorageProxyRegistry;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.World;
 
-import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * If there is a handheld item and no deposit location, it will try to deposit in a storage controller.
@@ -100,33 +96,13 @@ public class FallbackDepositToControllerGoal extends PausableGoal {
     //region Methods
 
     protected TileEntity findClosestStorageProxy() {
-        World world = this.entity.world;
-        List<BlockPos> allBlocks = new ArrayList<>();
         BlockPos machinePosition = this.job.getManagedMachine().globalPos.getPos();
 
         //get work area, but only half height, we don't need full.
         int workAreaSize = this.entity.getWorkAreaSize().getValue();
-        List<BlockPos> searchBlocks = BlockPos.getAllInBox(
+        return StorageProxyRegistry.getClosest(this.entity.world, this.job.getStorageControllerPosition(),
                 machinePosition.add(-workAreaSize, -workAreaSize / 2, -workAreaSize),
-                machinePosition.add(workAreaSize, workAreaSize / 2, workAreaSize)).map(BlockPos::toImmutable)
-                                              .collect(Collectors.toList());
-
-        for (BlockPos pos : searchBlocks) {
-            TileEntity tileEntity = world.getTileEntity(pos);
-            if (tileEntity instanceof IStorageControllerProxy) {
-                IStorageControllerProxy proxy = (IStorageControllerProxy) tileEntity;
-                if (proxy.getLinkedStorageControllerPosition() != null &&
-                    proxy.getLinkedStorageControllerPosition().equals(this.job.getStorageControllerPosition()))
-                    allBlocks.add(pos);
-            }
-        }
-
-        //set closest log as target
-        if (!allBlocks.isEmpty()) {
-            allBlocks.sort(this.targetSorter);
-            return world.getTileEntity(allBlocks.get(0));
-        }
-        return null;
+                machinePosition.add(workAreaSize, workAreaSize / 2, workAreaSize), this.targetSorter);
     }
 
     //endregion Methods
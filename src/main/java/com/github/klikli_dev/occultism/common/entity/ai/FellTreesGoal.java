@@ -38,12 +38,13 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class FellTreesGoal extends Goal {
     //region Fields
     protected final SpiritEntity entity;
-    protected final BlockSorter targetSorter;
+    protected TreeIndex treeIndex;
+    protected PriorityQueue<BlockPos> targetQueue;
+    protected int targetQueueVersion;
     protected BlockPos targetBlock = null;
     protected BlockPos moveTarget = null;
     protected int breakingTime;
@@ -53,7 +54,6 @@ public class FellTreesGoal extends Goal {
     //region Initialization
     public FellTreesGoal(SpiritEntity entity) {
         this.entity = entity;
-        this.targetSorter = new BlockSorter(entity);
         this.setMutexFlags(EnumSet.of(Flag.MOVE));
     }
     //endregion Initialization
@@ -150,72 +150,45 @@ public class FellTreesGoal extends Goal {
 
     private void resetTarget() {
         World world = this.entity.world;
-        List<BlockPos> allBlocks = new ArrayList<>();
-        BlockPos workAreaCenter = this.entity.getWorkAreaCenter();
-
-        //get work area, but only half height, we don't need full.
-        int workAreaSize = this.entity.getWorkAreaSize().getValue();
-        List<BlockPos> searchBlocks = BlockPos.getAllInBox(
-                workAreaCenter.add(-workAreaSize, -workAreaSize / 2, -workAreaSize),
-                workAreaCenter.add(workAreaSize, workAreaSize / 2, workAreaSize)).map(BlockPos::toImmutable).collect(
-                Collectors.toList());
-        for (BlockPos pos : searchBlocks) {
-            if (isLog(world, pos)) {
-
-                //find top of tree
-                BlockPos topOfTree = new BlockPos(pos);
-                while (!world.isAirBlock(topOfTree.up()) && topOfTree.getY() < world.getHeight()) {
-                    topOfTree = topOfTree.up();
-                }
+        this.treeIndex = TreeIndex.get(world, this.entity.getWorkAreaCenter(),
+                this.entity.getWorkAreaSize().getValue());
+        this.treeIndex.update(world);
+
+        //rebuild the target queue if the known trees changed, otherwise keep working through it closest first.
+        if (this.targetQueue == null || this.targetQueueVersion != this.treeIndex.getVersion()) {
+            BlockPos origin = this.entity.getPosition();
+            this.targetQueue = new PriorityQueue<>(Comparator.comparingDouble((BlockPos pos) -> pos.distanceSq(origin)));
+            this.targetQueue.addAll(this.treeIndex.getStumps());
+            this.targetQueueVersion = this.treeIndex.getVersion();
+        }
 
-                //find the stump of the tree
-                if (isLeaf(world, topOfTree)) {
-                    BlockPos logPos = this.getStump(topOfTree);
-                    if (isLog(world, logPos))
-                        allBlocks.add(logPos);
-                }
+        this.targetBlock = null;
+        this.moveTarget = null;
+        while (!this.targetQueue.isEmpty()) {
+            BlockPos stump = this.targetQueue.peek();
+            if (!isLog(world, stump)) {
+                //outdated entry, the index will also pick this up from the block change, but we can skip the wait.
+                this.targetQueue.poll();
+                this.treeIndex.remove(stump);
+                this.targetQueueVersion = this.treeIndex.getVersion();
+                continue;
             }
-        }
-        //set closest log as target
-        if (!allBlocks.isEmpty()) {
-            allBlocks.sort(this.targetSorter);
-            this.targetBlock = allBlocks.get(0);
 
             //Find a nearby empty block to move to
-            this.moveTarget = null;
             for (Direction facing : Direction.Plane.HORIZONTAL) {
-                BlockPos pos = this.targetBlock.offset(facing);
-                if (this.entity.world.isAirBlock(pos)) {
+                BlockPos pos = stump.offset(facing);
+                if (world.isAirBlock(pos)) {
                     this.moveTarget = pos;
                     break;
                 }
             }
 
             //none found -> invalid target
-            if (this.moveTarget == null) {
-                this.targetBlock = null;
-            }
-        }
-    }
-
-    /**
-     * Gets the stump for the given log.
-     *
-     * @param log the log
-     * @return the stump block position.
-     */
-    private BlockPos getStump(BlockPos log) {
-        if (log.getY() > 0) {
-            //for all nearby logs and leaves, move one block down and recurse.
-            for (BlockPos pos : BlockPos.getAllInBox(log.add(-4, -4, -4), log.add(4, 0, 4)).map(BlockPos::toImmutable)
-                                        .collect(
-                                                Collectors.toList())) {
-                if (isLog(this.entity.world, pos.down()) || isLeaf(this.entity.world, pos.down())) {
-                    return this.getStump(pos.down());
-                }
+            if (this.moveTarget != null) {
+                this.targetBlock = stump;
             }
+            break;
         }
-        return log;
     }
 
     private void fellTree() {
@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.entity.ai;
+
+import com.github.klikli_dev.occultism.Occultism;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.*;
+
+/**
+ * Server side index of item entities by chunk, shared by all spirits picking up items.
+ * Querying the chunks of a work area is much cheaper than an entity scan over the whole work area, and the per chunk
+ * versions allow spirits to keep their candidate lists until something in their work area changes.
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ItemEntityIndex {
+
+    //region Fields
+    protected static final Map<RegistryKey<World>, ItemEntityIndex> INDICES = new HashMap<>();
+
+    protected final Map<Long, Bucket> buckets = new HashMap<>();
+    protected final Map<ItemEntity, Long> chunkByEntity = new HashMap<>();
+    protected long version;
+    //endregion Fields
+
+    //region Static Methods
+
+    /**
+     * Gets the item entity index for the given world.
+     *
+     * @param world the world, must be server side.
+     * @return the index.
+     */
+    public static ItemEntityIndex get(World world) {
+        return INDICES.computeIfAbsent(world.getDimensionKey(), k -> new ItemEntityIndex());
+    }
+
+    protected static long getChunkKey(ItemEntity entity) {
+        return ChunkPos.asLong(MathHelper.floor(entity.getPosX()) >> 4, MathHelper.floor(entity.getPosZ()) >> 4);
+    }
+
+    @SubscribeEvent
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        if (event.getEntity() instanceof ItemEntity && !event.getWorld().isRemote)
+            get(event.getWorld()).add((ItemEntity) event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+        if (event.getEntity() instanceof ItemEntity && !event.getWorld().isRemote)
+            get(event.getWorld()).remove((ItemEntity) event.getEntity());
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isRemote)
+            return;
+        ItemEntityIndex index = INDICES.get(event.world.getDimensionKey());
+        if (index != null)
+            index.updateChunks();
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote())
+            INDICES.remove(((World) event.getWorld()).getDimensionKey());
+    }
+    //endregion Static Methods
+
+    //region Methods
+    public void add(ItemEntity entity) {
+        long chunk = getChunkKey(entity);
+        Long previous = this.chunkByEntity.put(entity, chunk);
+        if (previous != null)
+            this.removeFromBucket(entity, previous);
+        Bucket bucket = this.buckets.computeIfAbsent(chunk, k -> new Bucket());
+        if (bucket.entities.add(entity))
+            bucket.version = ++this.version;
+    }
+
+    public void remove(ItemEntity entity) {
+        Long chunk = this.chunkByEntity.remove(entity);
+        if (chunk != null)
+            this.removeFromBucket(entity, chunk);
+    }
+
+    /**
+     * Gets all living item entities in the chunks touched by the given box.
+     * The entities are not filtered by the box itself, so a cached result stays valid while entities move within their
+     * chunks, callers need to check {@link ItemEntity#getBoundingBox()} against the box whenever they use it.
+     *
+     * @param box the box to search.
+     * @return a new list of item entities.
+     */
+    public List<ItemEntity> getItemsInChunks(AxisAlignedBB box) {
+        List<ItemEntity> result = new ArrayList<>();
+        int minX = MathHelper.floor(box.minX) >> 4;
+        int maxX = MathHelper.floor(box.maxX) >> 4;
+        int minZ = MathHelper.floor(box.minZ) >> 4;
+        int maxZ = MathHelper.floor(box.maxZ) >> 4;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Bucket bucket = this.buckets.get(ChunkPos.asLong(x, z));
+                if (bucket == null)
+                    continue;
+                for (ItemEntity entity : bucket.entities) {
+                    if (entity.isAlive())
+                        result.add(entity);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets a version for the item entities in the chunks of the given box. The version increases whenever item
+     * entities are added to or move into those chunks. Removed item entities do not change the version, callers
+     * caching query results need to check {@link ItemEntity#isAlive()} themselves.
+     *
+     * @param box the box.
+     * @return the version.
+     */
+    public long getVersion(AxisAlignedBB box) {
+        long version = 0;
+        int minX = MathHelper.floor(box.minX) >> 4;
+        int maxX = MathHelper.floor(box.maxX) >> 4;
+        int minZ = MathHelper.floor(box.minZ) >> 4;
+        int maxZ = MathHelper.floor(box.maxZ) >> 4;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Bucket bucket = this.buckets.get(ChunkPos.asLong(x, z));
+                if (bucket != null)
+                    version = Math.max(version, bucket.version);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Moves item entities that changed chunks to their new bucket.
+     */
+    protected void updateChunks() {
+        List<ItemEntity> moved = null;
+        for (Map.Entry<ItemEntity, Long> entry : this.chunkByEntity.entrySet()) {
+            if (getChunkKey(entry.getKey()) != entry.getValue()) {
+                if (moved == null)
+                    moved = new ArrayList<>();
+                moved.add(entry.getKey());
+            }
+        }
+        if (moved != null) {
+            for (ItemEntity entity : moved) {
+                this.add(entity);
+            }
+        }
+    }
+
+    protected void removeFromBucket(ItemEntity entity, long chunk) {
+        Bucket bucket = this.buckets.get(chunk);
+        if (bucket != null && bucket.entities.remove(entity) && bucket.entities.isEmpty())
+            this.buckets.remove(chunk);
+    }
+    //endregion Methods
+
+    protected static class Bucket {
+        //region Fields
+        protected final Set<ItemEntity> entities = new HashSet<>();
+        /**
+         * The index version of the last entity added to this bucket.
+         */
+        protected long version;
+        //endregion Fields
+    }
+}
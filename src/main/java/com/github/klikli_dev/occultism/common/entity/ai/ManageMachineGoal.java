@@ -28,6 +28,7 @@ import com.github.klikli_dev.occultism.api.common.tile.IStorageControllerProxy;
 import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
 import com.github.klikli_dev.occultism.common.job.ManageMachineJob;
 import com.github.klikli_dev.occultism.common.misc.DepositOrder;
+import com.github.klikli_dev.occultism.common.tile.StorageProxyRegistry;
 import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
 import com.github.klikli_dev.occultism.util.Math3DUtil;
 import net.minecraft.block.BlockState;
@@ -40,15 +41,12 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.BlockRayTraceResult;
 import net.minecraft.util.math.RayTraceContext;
 import net.minecraft.util.math.RayTraceResult;
-import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 
-import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.List;
-import java.util.stream.Stream;
 
 public class ManageMachineGoal extends Goal {
     //region Fields
@@ -58,6 +56,14 @@ public class ManageMachineGoal extends Goal {
     protected TileEntity cachedStorageAccessor;
     protected DepositOrder cachedStorageAccessorOrder;
     protected ManageMachineJob job;
+
+    /**
+     * The machine and reference the cached machine handlers were retrieved for.
+     */
+    protected TileEntity cachedMachine;
+    protected MachineReference cachedMachineReference;
+    protected LazyOptional<IItemHandler> cachedMachineInsertHandler = LazyOptional.empty();
+    protected LazyOptional<IItemHandler> cachedMachineExtractHandler = LazyOptional.empty();
     //endregion Fields
 
     //region Initialization
@@ -134,20 +140,27 @@ public class ManageMachineGoal extends Goal {
                         ItemStack itemToExtract = this.job.getStorageController()
                                                           .getItemStack(currentOrder.comparator, currentOrder.amount,
                                                                   true);
+                        //the order may have grown by merging since the machine was checked, so only take what the
+                        //machine still accepts.
+                        int machineAccepts = itemToExtract.isEmpty() ? 0 : this.cachedMachineInsertHandler
+                                .map(machineHandler -> itemToExtract.getCount() -
+                                                       ItemHandlerHelper.insertItem(machineHandler, itemToExtract,
+                                                               true).getCount()).orElse(0);
                         IItemHandler handler = this.entity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY,
                                 Direction.UP).orElseThrow(ItemHandlerMissingException::new);
-                        if (!itemToExtract.isEmpty() &&
-                            ItemHandlerHelper.insertItem(handler, itemToExtract, true).isEmpty()) {
+                        if (machineAccepts > 0 && ItemHandlerHelper.insertItem(handler,
+                                ItemHandlerHelper.copyStackWithSize(itemToExtract, machineAccepts), true).isEmpty()) {
                             //we can insert all, so we can perform for real now
                             ItemStack extracted = this.job.getStorageController()
-                                                          .getItemStack(currentOrder.comparator, currentOrder.amount,
+                                                          .getItemStack(currentOrder.comparator, machineAccepts,
                                                                   false);
                             ItemHandlerHelper.insertItem(handler, extracted, false);
 
-                            //job fulfilled, deposit ai will take over
+                            //job fulfilled, deposit ai will take over. What the machine could not take stays ordered.
                             this.entity.setDepositPosition(machineReference.globalPos.getPos());
                             this.entity.setDepositFacing(machineReference.insertFacing);
-                            this.job.setCurrentDepositOrder(null);
+                            currentOrder.amount = itemToExtract.getCount() - machineAccepts;
+                            this.job.setCurrentDepositOrder(currentOrder.amount > 0 ? currentOrder : null);
                             this.targetBlock = null;
                         }
                     }
@@ -226,38 +239,25 @@ public class ManageMachineGoal extends Goal {
         if (this.cachedStorageAccessor != null && this.cachedStorageAccessorOrder == this.job.getCurrentDepositOrder())
             return this.cachedStorageAccessor;
 
-        World world = this.entity.world;
-        List<BlockPos> allBlocks = new ArrayList<>();
         BlockPos machinePosition = this.job.getManagedMachine().globalPos.getPos();
 
         //get work area, but only half height, we don't need full.
         int workAreaSize = this.entity.getWorkAreaSize().getValue();
-        Stream<BlockPos> searchBlocks = BlockPos.getAllInBox(
+        TileEntity storageProxy = StorageProxyRegistry.getClosest(this.entity.world,
+                this.job.getStorageControllerPosition(),
                 machinePosition.add(-workAreaSize, -workAreaSize / 2, -workAreaSize),
-                machinePosition.add(workAreaSize, workAreaSize / 2, workAreaSize));
-        searchBlocks.forEachOrdered(pos -> {
-            TileEntity tileEntity = world.getTileEntity(pos);
-            if (tileEntity instanceof IStorageControllerProxy) {
-                IStorageControllerProxy proxy = (IStorageControllerProxy) tileEntity;
-                if (proxy.getLinkedStorageControllerPosition() != null &&
-                    proxy.getLinkedStorageControllerPosition().equals(this.job.getStorageControllerPosition()))
-                    allBlocks.add(pos.toImmutable());
-            }
-        });
+                machinePosition.add(workAreaSize, workAreaSize / 2, workAreaSize), this.targetSorter);
 
-        //set closest log as target
-        if (!allBlocks.isEmpty()) {
-            allBlocks.sort(this.targetSorter);
-            this.cachedStorageAccessor = world.getTileEntity(allBlocks.get(0));
+        if (storageProxy != null) {
+            this.cachedStorageAccessor = storageProxy;
             this.cachedStorageAccessorOrder = this.job.getCurrentDepositOrder();
-            return this.cachedStorageAccessor;
         }
-        return null;
+        return storageProxy;
     }
 
     private boolean startTargetingStorageController(DepositOrder depositOrder, MachineReference machineReference,
                                                     TileEntity machine, IStorageController storageController) {
-        return machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, machineReference.insertFacing)
+        return this.cachedMachineInsertHandler
                        .map(machineItemHandler -> {
                            //simulate taking and inserting items to ensure we have space
                            ItemStack orderStack = storageController
@@ -285,7 +285,7 @@ public class ManageMachineGoal extends Goal {
 
     private boolean startTargetingMachine(DepositOrder depositOrder, MachineReference machineReference,
                                           TileEntity machine, IStorageController storageController) {
-        return machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, machineReference.extractFacing)
+        return this.cachedMachineExtractHandler
                        .map(machineItemHandler -> {
                            for (int i = 0; i < machineItemHandler.getSlots(); i++) {
                                if (!machineItemHandler.getStackInSlot(i).isEmpty()) {
@@ -298,6 +298,27 @@ public class ManageMachineGoal extends Goal {
                        }).orElse(false);
     }
 
+    /**
+     * Updates the cached item handlers of the managed machine. Handlers are only retrieved again if the machine
+     * or its reference changed, or a handler was invalidated.
+     *
+     * @param machineReference the managed machine reference.
+     * @param machine          the managed machine.
+     * @return true if the machine provides both the insert and the extract handler.
+     */
+    private boolean updateMachineHandlers(MachineReference machineReference, TileEntity machine) {
+        if (machine != this.cachedMachine || machineReference != this.cachedMachineReference ||
+            !this.cachedMachineInsertHandler.isPresent() || !this.cachedMachineExtractHandler.isPresent()) {
+            this.cachedMachine = machine;
+            this.cachedMachineReference = machineReference;
+            this.cachedMachineInsertHandler = machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY,
+                    machineReference.insertFacing);
+            this.cachedMachineExtractHandler = machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY,
+                    machineReference.extractFacing);
+        }
+        return this.cachedMachineInsertHandler.isPresent() && this.cachedMachineExtractHandler.isPresent();
+    }
+
     private void resetTarget() {
         DepositOrder currentOrder = this.job.getCurrentDepositOrder();
         MachineReference machineReference = this.job.getManagedMachine();
@@ -307,10 +328,7 @@ public class ManageMachineGoal extends Goal {
         if (machine != null && storageController != null) {
 
             //machine was replaced or no longer supports inventories, so we unlink it and abort
-            if (!machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, machineReference.insertFacing)
-                         .isPresent() ||
-                !machine.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, machineReference.extractFacing)
-                         .isPresent()) {
+            if (!this.updateMachineHandlers(machineReference, machine)) {
                 this.job.setManagedMachine(null);
                 this.targetBlock = null;
                 return;
@@ -45,6 +45,9 @@ public class PickupItemsGoal extends TargetGoal {
     protected final EntitySorter entitySorter;
     protected ItemEntity targetItem;
     protected int executionChance;
+    protected List<ItemEntity> candidates;
+    protected AxisAlignedBB candidatesBox;
+    protected long candidatesVersion;
     //endregion Fields
 
     //region Initialization
@@ -91,16 +94,29 @@ public class PickupItemsGoal extends TargetGoal {
         AxisAlignedBB targetBox = new AxisAlignedBB(-workAreaSize, -workAreaSize / 2.0, -workAreaSize, workAreaSize,
                 workAreaSize / 2.0, workAreaSize).offset(this.entity.getWorkAreaCenter());
 
-        List<ItemEntity> list = this.goalOwner.world
-                                        .getEntitiesWithinAABB(ItemEntity.class, targetBox, this.targetItemSelector);
-        if (list.isEmpty()) {
+        //only query the index again if items were added to the chunks of our work area since the last poll.
+        //the candidates include items outside the work area, as they may move into it without changing chunks.
+        ItemEntityIndex index = ItemEntityIndex.get(this.goalOwner.world);
+        long version = index.getVersion(targetBox);
+        if (this.candidates == null || this.candidatesVersion != version || !targetBox.equals(this.candidatesBox)) {
+            this.candidates = index.getItemsInChunks(targetBox);
+            this.candidatesBox = targetBox;
+            this.candidatesVersion = version;
+        }
+        this.candidates.removeIf(item -> !item.isAlive());
+        if (this.candidates.isEmpty()) {
             return false;
         }
-        else {
-            list.sort(this.entitySorter);
-            this.targetItem = list.get(0);
-            return true;
+
+        //closest first, so usually only the first candidate needs to be tested.
+        this.candidates.sort(this.entitySorter);
+        for (ItemEntity item : this.candidates) {
+            if (item.getBoundingBox().intersects(targetBox) && this.targetItemSelector.apply(item)) {
+                this.targetItem = item;
+                return true;
+            }
         }
+        return false;
     }
 
     @Override
@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.entity.ai;
+
+import com.github.klikli_dev.occultism.Occultism;
+import net.minecraft.block.BlockState;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.*;
+
+/**
+ * Index of tree stumps in a lumberjack work area, shared by all lumberjacks working the same area.
+ * The work area is scanned in budgeted steps over several ticks, block changes inside the area are picked up via
+ * block events, and the area is rescanned periodically to catch changes that do not fire events (e.g. world gen).
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class TreeIndex {
+
+    //region Fields
+    /**
+     * The amount of blocks to scan per tick.
+     */
+    public static final int SCAN_BLOCKS_PER_TICK = 4096;
+    /**
+     * The amount of changed blocks to re-evaluate per tick.
+     */
+    public static final int CHANGES_PER_TICK = 64;
+    /**
+     * Ticks to wait after a full scan before the work area is rescanned.
+     */
+    public static final int RESCAN_INTERVAL = 20 * 60;
+    /**
+     * Indices that have not been used for this amount of ticks are discarded.
+     */
+    public static final int EXPIRE_TICKS = 20 * 60;
+
+    protected static final Map<RegistryKey<World>, List<TreeIndex>> INDICES = new HashMap<>();
+
+    protected final BlockPos center;
+    protected final int size;
+    protected final BlockPos min;
+    protected final BlockPos max;
+    protected final Set<BlockPos> stumps = new HashSet<>();
+    protected final Set<BlockPos> changedPositions = new LinkedHashSet<>();
+    protected int version;
+    protected long scanIndex;
+    protected long nextScanTime;
+    protected long lastUpdateTime = -1;
+    protected long lastAccessTime;
+    //endregion Fields
+
+    //region Initialization
+    protected TreeIndex(BlockPos center, int size) {
+        this.center = center.toImmutable();
+        this.size = size;
+        //only half height, we don't need full.
+        this.min = center.add(-size, -size / 2, -size);
+        this.max = center.add(size, size / 2, size);
+    }
+    //endregion Initialization
+
+    //region Getter / Setter
+
+    /**
+     * @return the stumps currently known in the work area. Entries may be outdated and need to be verified.
+     */
+    public Set<BlockPos> getStumps() {
+        return Collections.unmodifiableSet(this.stumps);
+    }
+
+    /**
+     * @return a counter that changes whenever stumps are added to or removed from the index.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+    //endregion Getter / Setter
+
+    //region Static Methods
+
+    /**
+     * Gets or creates the tree index for the given work area.
+     *
+     * @param world  the world.
+     * @param center the work area center.
+     * @param size   the work area size.
+     * @return the tree index.
+     */
+    public static TreeIndex get(World world, BlockPos center, int size) {
+        List<TreeIndex> indices = INDICES.computeIfAbsent(world.getDimensionKey(), k -> new ArrayList<>());
+        long time = world.getGameTime();
+        indices.removeIf(index -> time - index.lastAccessTime > EXPIRE_TICKS);
+
+        TreeIndex result = null;
+        for (TreeIndex index : indices) {
+            if (index.size == size && index.center.equals(center)) {
+                result = index;
+                break;
+            }
+        }
+        if (result == null) {
+            result = new TreeIndex(center, size);
+            indices.add(result);
+        }
+        result.lastAccessTime = time;
+        return result;
+    }
+
+    /**
+     * Queues re-evaluation of the given position in all tree indices containing it, if it is a new log or a known
+     * stump.
+     *
+     * @param world the world the block changed in.
+     * @param pos   the changed position.
+     * @param state the new block state.
+     */
+    public static void onBlockChanged(IWorld world, BlockPos pos, BlockState state) {
+        if (!(world instanceof World) || world.isRemote())
+            return;
+        List<TreeIndex> indices = INDICES.get(((World) world).getDimensionKey());
+        if (indices == null)
+            return;
+        boolean isLog = BlockTags.LOGS.contains(state.getBlock());
+        for (TreeIndex index : indices) {
+            if (index.contains(pos) && (isLog || index.stumps.contains(pos)))
+                index.changedPositions.add(pos.toImmutable());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        onBlockChanged(event.getWorld(), event.getPos(), event.getState());
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote())
+            INDICES.remove(((World) event.getWorld()).getDimensionKey());
+    }
+    //endregion Static Methods
+
+    //region Methods
+
+    /**
+     * Processes queued block changes and advances the work area scan. Only does work once per tick, so it is safe
+     * to call from multiple lumberjacks.
+     *
+     * @param world the world.
+     */
+    public void update(World world) {
+        long time = world.getGameTime();
+        if (this.lastUpdateTime == time)
+            return;
+        this.lastUpdateTime = time;
+
+        Iterator<BlockPos> changes = this.changedPositions.iterator();
+        for (int i = 0; i < CHANGES_PER_TICK && changes.hasNext(); i++) {
+            BlockPos pos = changes.next();
+            changes.remove();
+            if (this.stumps.contains(pos) && !FellTreesGoal.isLog(world, pos))
+                this.remove(pos);
+            else if (FellTreesGoal.isLog(world, pos))
+                this.evaluateLog(world, pos);
+        }
+
+        if (time >= this.nextScanTime)
+            this.scan(world);
+    }
+
+    /**
+     * Removes an outdated stump from the index.
+     *
+     * @param stump the stump.
+     */
+    public void remove(BlockPos stump) {
+        if (this.stumps.remove(stump))
+            this.version++;
+    }
+
+    protected boolean contains(BlockPos pos) {
+        return pos.getX() >= this.min.getX() && pos.getX() <= this.max.getX() &&
+               pos.getY() >= this.min.getY() && pos.getY() <= this.max.getY() &&
+               pos.getZ() >= this.min.getZ() && pos.getZ() <= this.max.getZ();
+    }
+
+    protected void scan(World world) {
+        int sizeX = this.max.getX() - this.min.getX() + 1;
+        int sizeY = this.max.getY() - this.min.getY() + 1;
+        int sizeZ = this.max.getZ() - this.min.getZ() + 1;
+        long volume = (long) sizeX * sizeY * sizeZ;
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        BlockPos.Mutable below = new BlockPos.Mutable();
+
+        for (int i = 0; i < SCAN_BLOCKS_PER_TICK && this.scanIndex < volume; i++, this.scanIndex++) {
+            //iterate bottom to top within a column, so we only need to evaluate the lowest log of each column
+            int y = (int) (this.scanIndex % sizeY);
+            long column = this.scanIndex / sizeY;
+            int x = (int) (column % sizeX);
+            int z = (int) (column / sizeX);
+            pos.setPos(this.min.getX() + x, this.min.getY() + y, this.min.getZ() + z);
+
+            //do not load chunks just to look for trees, the next scan will pick them up.
+            if (!world.isBlockLoaded(pos)) {
+                this.scanIndex += sizeY - 1 - y;
+                continue;
+            }
+
+            below.setPos(pos.getX(), pos.getY() - 1, pos.getZ());
+            if (FellTreesGoal.isLog(world, pos) && (y == 0 || !FellTreesGoal.isLog(world, below)))
+                this.evaluateLog(world, pos.toImmutable());
+        }
+
+        if (this.scanIndex >= volume) {
+            this.scanIndex = 0;
+            this.nextScanTime = world.getGameTime() + RESCAN_INTERVAL;
+        }
+    }
+
+    /**
+     * Finds the stump of the tree the given log belongs to and adds it to the index.
+     *
+     * @param world the world.
+     * @param log   the log position.
+     */
+    protected void evaluateLog(World world, BlockPos log) {
+        //find top of tree
+        BlockPos topOfTree = log;
+        while (!world.isAirBlock(topOfTree.up()) && topOfTree.getY() < world.getHeight()) {
+            topOfTree = topOfTree.up();
+        }
+
+        //find the stump of the tree
+        if (FellTreesGoal.isLeaf(world, topOfTree)) {
+            BlockPos stump = this.getStump(world, topOfTree);
+            if (FellTreesGoal.isLog(world, stump) && this.stumps.add(stump))
+                this.version++;
+        }
+    }
+
+    /**
+     * Gets the stump for the given log.
+     *
+     * @param world the world.
+     * @param log   the log
+     * @return the stump block position.
+     */
+    protected BlockPos getStump(World world, BlockPos log) {
+        BlockPos.Mutable below = new BlockPos.Mutable();
+        while (log.getY() > 0) {
+            //for all nearby logs and leaves, move one block down and continue from there.
+            BlockPos next = null;
+            for (BlockPos pos : BlockPos.getAllInBoxMutable(log.add(-4, -4, -4), log.add(4, 0, 4))) {
+                below.setPos(pos.getX(), pos.getY() - 1, pos.getZ());
+                if (FellTreesGoal.isLog(world, below) || FellTreesGoal.isLeaf(world, below)) {
+                    next = below.toImmutable();
+                    break;
+                }
+            }
+            if (next == null)
+                break;
+            log = next;
+        }
+        return log;
+    }
+    //endregion Methods
+}
@@ -27,6 +27,7 @@ import com.github.klikli_dev.occultism.common.container.spirit.SpiritContainer;
 import com.github.klikli_dev.occultism.common.entity.ISkinnedCreatureMixin;
 import com.github.klikli_dev.occultism.common.item.spirit.BookOfCallingItem;
 import com.github.klikli_dev.occultism.common.job.SpiritJob;
+import com.github.klikli_dev.occultism.common.misc.ItemFilter;
 import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
 import com.github.klikli_dev.occultism.registry.OccultismSounds;
 import net.minecraft.entity.*;
@@ -59,10 +60,13 @@ import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.fml.network.NetworkHooks;
 import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nullable;
 import javax.swing.text.html.Option;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -133,6 +137,10 @@ public abstract class SpiritEntity extends TameableEntity implements ISkinnedCre
     });
     protected Optional<SpiritJob> job = Optional.empty();
     protected boolean isInitialized = false;
+    /**
+     * The compiled filter items and tag filter, built on first use after either changes.
+     */
+    protected ItemFilter itemFilter;
 
     //endregion Fields
     //region Initialization
@@ -146,6 +154,10 @@ public abstract class SpiritEntity extends TameableEntity implements ISkinnedCre
     public void notifyDataManagerChange(DataParameter<?> key) {
         super.notifyDataManagerChange(key);
 
+        if(key == FILTER_ITEMS || key == TAG_FILTER){
+            this.itemFilter = null;
+        }
+
         if(key == FILTER_ITEMS){
             //restore filter item handler from data param on client
             if(this.world.isRemote){
@@ -316,6 +328,43 @@ public abstract class SpiritEntity extends TameableEntity implements ISkinnedCre
         return this.filterItemStackHandler;
     }
 
+    /**
+     * Resizes the spirit inventory, keeping its contents.
+     * Slot 0 is the main hand. Stacks that no longer fit are dropped.
+     *
+     * @param size the new number of slots, at least 1.
+     */
+    public void setInventorySize(int size) {
+        ItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        size = Math.max(1, size);
+        if (handler.getSlots() == size)
+            return;
+
+        List<ItemStack> stacks = new ArrayList<>();
+        for (int i = 0; i < handler.getSlots(); i++) {
+            stacks.add(handler.getStackInSlot(i));
+        }
+        handler.setSize(size);
+        for (ItemStack stack : stacks) {
+            ItemStack remaining = ItemHandlerHelper.insertItem(handler, stack, false);
+            if (!remaining.isEmpty() && !this.world.isRemote)
+                this.entityDropItem(remaining, 0.0F);
+        }
+    }
+
+    /**
+     * Gets the compiled filter for the filter items and tag filter.
+     *
+     * @return the compiled filter.
+     */
+    public ItemFilter getItemFilter() {
+        if (this.itemFilter == null) {
+            this.itemFilter = new ItemFilter(this.filterItemStackHandler.orElseThrow(ItemHandlerMissingException::new),
+                    this.getTagFilter());
+        }
+        return this.itemFilter;
+    }
+
     public Optional<SpiritJob> getJob() {
         return this.job;
     }
@@ -554,6 +603,7 @@ public abstract class SpiritEntity extends TameableEntity implements ISkinnedCre
 
         if(compound.contains("filterItems")){
             this.filterItemStackHandler.ifPresent(handler -> handler.deserializeNBT(compound.getCompound("filterItems")));
+            this.itemFilter = null;
         }
 
         if(compound.contains("tagFilter")){
@@ -27,14 +27,11 @@ import com.github.klikli_dev.occultism.common.entity.ai.DepositItemsGoal;
 import com.github.klikli_dev.occultism.common.entity.ai.PickupItemsGoal;
 import com.github.klikli_dev.occultism.common.entity.ai.ReturnToWorkAreaGoal;
 import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
-import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
-import com.github.klikli_dev.occultism.util.StorageUtil;
 import net.minecraft.entity.item.ItemEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
-import net.minecraft.item.ItemStack;
 import net.minecraft.util.text.ITextComponent;
 
 import javax.annotation.Nullable;
@@ -76,13 +73,7 @@ public class CleanerJob extends SpiritJob implements INamedContainerProvider {
 
     @Override
     public boolean canPickupItem(ItemEntity entity) {
-        ItemStack stack = entity.getItem();
-        boolean matches = StorageUtil.matchesFilter(stack,
-                this.entity.getFilterItems().orElseThrow(ItemHandlerMissingException::new)) ||
-                          StorageUtil.matchesFilter(stack, this.entity.getTagFilter());
-
-        boolean isBlacklist = this.entity.isFilterBlacklist();
-        return ((!isBlacklist && matches) || (isBlacklist && !matches));
+        return this.entity.getItemFilter().isAllowed(entity.getItem(), this.entity.isFilterBlacklist());
     }
 
     @Nullable
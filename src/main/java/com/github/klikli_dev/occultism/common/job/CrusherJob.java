@@ -26,12 +26,11 @@ import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.common.entity.ai.PickupItemsGoal;
 import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
 import com.github.klikli_dev.occultism.crafting.recipe.CrushingRecipe;
+import com.github.klikli_dev.occultism.crafting.recipe.CrushingRecipeIndex;
 import com.github.klikli_dev.occultism.crafting.recipe.ItemStackFakeInventory;
-import com.github.klikli_dev.occultism.registry.OccultismRecipes;
 import com.github.klikli_dev.occultism.registry.OccultismSounds;
 import net.minecraft.entity.item.ItemEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.crafting.Ingredient;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.particles.ParticleTypes;
 import net.minecraft.util.Hand;
@@ -39,11 +38,8 @@ import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.server.ServerWorld;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class CrusherJob extends SpiritJob {
 
@@ -59,8 +55,6 @@ public class CrusherJob extends SpiritJob {
 
     protected Optional<CrushingRecipe> currentRecipe = Optional.empty();
     protected PickupItemsGoal pickupItemsGoal;
-
-    protected List<Ingredient> itemsToPickUp = new ArrayList<>();
     //endregion Fields
 
 
@@ -76,9 +70,6 @@ public class CrusherJob extends SpiritJob {
     @Override
     public void init() {
         this.entity.targetSelector.addGoal(1, this.pickupItemsGoal = new PickupItemsGoal(this.entity));
-        this.itemsToPickUp = this.entity.world.getRecipeManager().getRecipes().stream()
-                                     .filter(recipe -> recipe.getType() == OccultismRecipes.CRUSHING_TYPE.get())
-                                     .flatMap(recipe -> recipe.getIngredients().stream()).collect(Collectors.toList());
     }
 
     @Override
@@ -92,8 +83,7 @@ public class CrusherJob extends SpiritJob {
         ItemStackFakeInventory fakeInventory = new ItemStackFakeInventory(handHeld);
 
         if (!this.currentRecipe.isPresent() && !handHeld.isEmpty()) {
-            this.currentRecipe = this.entity.world.getRecipeManager().getRecipe(OccultismRecipes.CRUSHING_TYPE.get(),
-                    fakeInventory, this.entity.world);
+            this.currentRecipe = CrushingRecipeIndex.findRecipe(this.entity.world, fakeInventory);
             this.crushingTimer = 0;
             //play crushing sound
             this.entity.world
@@ -168,7 +158,7 @@ public class CrusherJob extends SpiritJob {
             return false; //cannot pick up items a crusher (most likely *this* one) dropped util delay elapsed.
 
         ItemStack stack = entity.getItem();
-        return !stack.isEmpty() && this.itemsToPickUp.stream().anyMatch(i -> i.test(stack));
+        return !stack.isEmpty() && CrushingRecipeIndex.isIngredient(this.entity.world, stack);
     }
     //endregion Overrides
 
@@ -40,7 +40,7 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.common.util.Constants;
 
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.Deque;
 
 public class ManageMachineJob extends SpiritJob {
     //region Fields
@@ -51,7 +51,7 @@ public class ManageMachineJob extends SpiritJob {
     protected GlobalBlockPos storageControllerPosition;
     protected MachineReference managedMachine;
     protected DepositOrder currentDepositOrder;
-    protected Queue<DepositOrder> depositOrderQueue = new ArrayDeque<>();
+    protected Deque<DepositOrder> depositOrderQueue = new ArrayDeque<>();
     protected IStorageController storageController;
     protected TileEntity managedMachineTileEntity;
 
@@ -69,6 +69,14 @@ public class ManageMachineJob extends SpiritJob {
 
     public void setCurrentDepositOrder(DepositOrder order) {
         this.currentDepositOrder = order;
+        this.updateQueuedDepositOrders();
+    }
+
+    /**
+     * @return the amount of queued deposit orders, including the current one.
+     */
+    public int getQueuedDepositOrders() {
+        return this.depositOrderQueue.size() + (this.currentDepositOrder != null ? 1 : 0);
     }
 
     public MachineReference getManagedMachine() {
@@ -193,7 +201,7 @@ public class ManageMachineJob extends SpiritJob {
             this.managedMachine = MachineReference.from(compound.getCompound("managedMachine"));
 
         if (compound.contains("currentDepositOrder"))
-            this.setCurrentDepositOrder(DepositOrder.from(compound.getCompound("currentDepositOrder")));
+            this.currentDepositOrder = DepositOrder.from(compound.getCompound("currentDepositOrder"));
 
         this.depositOrderQueue = new ArrayDeque<>();
         if (compound.contains("depositOrders")) {
@@ -209,12 +217,30 @@ public class ManageMachineJob extends SpiritJob {
 
     //region Methods
     public void addDepsitOrder(DepositOrder order) {
-        this.depositOrderQueue.add(order);
+        //coalesce with the last order for the same item, as far as it can be carried in one trip.
+        //the current order is not extracted yet, so it can still grow as well.
+        DepositOrder lastOrder = this.depositOrderQueue.isEmpty() ? this.currentDepositOrder :
+                                 this.depositOrderQueue.peekLast();
+        if (lastOrder == null || !lastOrder.isSameItem(order) || !lastOrder.merge(order))
+            this.depositOrderQueue.add(order);
+        this.updateQueuedDepositOrders();
     }
 
     public void clearAllOrders() {
         this.currentDepositOrder = null;
         this.depositOrderQueue.clear();
+        this.updateQueuedDepositOrders();
+    }
+
+    /**
+     * Reports the amount of queued orders to the storage controller, so it can be displayed for the managed machine.
+     */
+    protected void updateQueuedDepositOrders() {
+        if (this.storageControllerPosition == null || this.managedMachine == null || this.entity.world.isRemote)
+            return;
+        IStorageController storageController = this.getStorageController();
+        if (storageController != null)
+            storageController.setQueuedDepositOrders(this.managedMachine.globalPos, this.getQueuedDepositOrders());
     }
 
     protected void registerWithStorageController() {
@@ -223,6 +249,7 @@ public class ManageMachineJob extends SpiritJob {
         if (storageController != null && this.managedMachine != null) {
             storageController.addDepositOrderSpirit(this.managedMachine.globalPos, this.entity.getUniqueID());
             storageController.linkMachine(this.managedMachine);
+            this.updateQueuedDepositOrders();
             TileEntityUtil.updateTile(this.entity.world, this.getStorageControllerPosition().getPos());
         }
     }
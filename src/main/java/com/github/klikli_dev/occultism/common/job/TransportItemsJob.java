@@ -22,6 +22,7 @@
 
 package com.github.klikli_dev.occultism.common.job;
 
+import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.common.container.spirit.SpiritTransporterContainer;
 import com.github.klikli_dev.occultism.common.entity.ai.DepositItemsGoal;
 import com.github.klikli_dev.occultism.common.entity.ai.ExtractItemsGoal;
@@ -66,6 +67,7 @@ public class TransportItemsJob extends SpiritJob implements INamedContainerProvi
         this.entity.goalSelector.addGoal(3, this.depositItemsGoal = new DepositItemsGoal(this.entity));
         this.entity.goalSelector.addGoal(4, this.extractItemsGoal = new ExtractItemsGoal(this.entity));
         this.entity.goalSelector.addGoal(5, this.openDoorGoal = new OpenDoorGoal(this.entity, true));
+        this.entity.setInventorySize(Occultism.SERVER_CONFIG.spiritJobs.transporterInventorySlots.get());
     }
 
     @Override
@@ -75,6 +77,7 @@ public class TransportItemsJob extends SpiritJob implements INamedContainerProvi
         this.entity.goalSelector.removeGoal(this.depositItemsGoal);
         this.entity.goalSelector.removeGoal(this.extractItemsGoal);
         this.entity.goalSelector.removeGoal(this.openDoorGoal);
+        this.entity.setInventorySize(1);
     }
 
     @Nullable
@@ -22,6 +22,7 @@
 
 package com.github.klikli_dev.occultism.common.misc;
 
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraftforge.common.util.INBTSerializable;
 
@@ -51,6 +52,42 @@ public class DepositOrder implements INBTSerializable<CompoundNBT> {
     //endregion Static Methods
 
     //region Methods
+
+    /**
+     * @param other the order to compare with.
+     * @return true if both orders request the same items, so they can be fulfilled in one trip.
+     */
+    public boolean isSameItem(DepositOrder other) {
+        if (this.comparator == null || other.comparator == null ||
+            this.comparator.getMatchNbt() != other.comparator.getMatchNbt())
+            return false;
+        ItemStack stack = this.comparator.getFilterStack();
+        ItemStack otherStack = other.comparator.getFilterStack();
+        return stack.getItem() == otherStack.getItem() &&
+               (!this.comparator.getMatchNbt() || ItemStack.areItemStackTagsEqual(stack, otherStack));
+    }
+
+    /**
+     * @return the max amount of items that can be carried for this order in one trip.
+     */
+    public int getMaxAmount() {
+        return this.comparator.getFilterStack().getMaxStackSize();
+    }
+
+    /**
+     * Merges as much of the given order into this order as can be carried in one trip.
+     * The other order is reduced by the merged amount.
+     *
+     * @param other the order to merge, must request the same items.
+     * @return true if the other order was merged completely.
+     */
+    public boolean merge(DepositOrder other) {
+        int merged = Math.min(other.amount, Math.max(0, this.getMaxAmount() - this.amount));
+        this.amount += merged;
+        other.amount -= merged;
+        return other.amount <= 0;
+    }
+
     public CompoundNBT writeToNBT(CompoundNBT compound) {
         compound.put("comparator", this.comparator.serializeNBT());
         compound.putInt("amount", this.amount);
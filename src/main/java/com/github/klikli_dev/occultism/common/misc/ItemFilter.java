@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev, MrRiegel, Sam Bassett
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.misc;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tags.ITagCollection;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.items.IItemHandler;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+
+import java.util.*;
+
+/**
+ * Compiled form of a spirit item and tag filter.
+ * Filter items are kept as a set of items, and the wildcard tag filters are resolved against the item tag collection
+ * once, so matching an item is a set lookup. Results are memoized per item until the tag collection is reloaded.
+ */
+public class ItemFilter {
+
+    //region Fields
+    protected final Set<Item> items = new HashSet<>();
+    protected final List<String> tagPatterns = new ArrayList<>();
+    protected final Map<Item, Boolean> matchesByItem = new IdentityHashMap<>();
+    protected Set<ResourceLocation> tags = Collections.emptySet();
+    protected ITagCollection<Item> tagCollection;
+    //endregion Fields
+
+    //region Initialization
+
+    /**
+     * Compiles a filter for the given filter items and tag filter.
+     *
+     * @param filter    the filter items.
+     * @param tagFilter the tag filter, a ';' separated list of wildcard patterns.
+     */
+    public ItemFilter(IItemHandler filter, String tagFilter) {
+        for (int i = 0; i < filter.getSlots(); i++) {
+            ItemStack filtered = filter.getStackInSlot(i);
+            if (!filtered.isEmpty())
+                this.items.add(filtered.getItem());
+        }
+
+        if (!tagFilter.isEmpty()) {
+            for (String pattern : tagFilter.split(";")) {
+                if (!pattern.isEmpty())
+                    this.tagPatterns.add(pattern);
+            }
+        }
+    }
+    //endregion Initialization
+
+    //region Methods
+
+    /**
+     * Checks if the given stack matches either a filter item or a tag filter.
+     *
+     * @param stack the stack to check.
+     * @return true if the stack matches.
+     */
+    public boolean matches(ItemStack stack) {
+        if (stack.isEmpty())
+            return false;
+
+        ITagCollection<Item> tagCollection = ItemTags.getCollection();
+        if (tagCollection != this.tagCollection)
+            this.resolveTags(tagCollection);
+
+        return this.matchesByItem.computeIfAbsent(stack.getItem(), this::matches);
+    }
+
+    /**
+     * Checks if the given stack matches the filter, respecting the filter mode.
+     *
+     * @param stack       the stack to check.
+     * @param isBlacklist true if the filter is a blacklist.
+     * @return true if the stack passes the filter.
+     */
+    public boolean isAllowed(ItemStack stack, boolean isBlacklist) {
+        return this.matches(stack) != isBlacklist;
+    }
+
+    protected boolean matches(Item item) {
+        if (this.items.contains(item))
+            return true;
+        if (this.tags.isEmpty())
+            return false;
+        for (ResourceLocation tag : item.getTags()) {
+            if (this.tags.contains(tag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the tag patterns to the ids of all matching tags in the given collection.
+     *
+     * @param tagCollection the current item tag collection.
+     */
+    protected void resolveTags(ITagCollection<Item> tagCollection) {
+        this.tagCollection = tagCollection;
+        this.matchesByItem.clear();
+        if (this.tagPatterns.isEmpty())
+            return;
+
+        Set<ResourceLocation> tags = new HashSet<>();
+        for (ResourceLocation tag : tagCollection.getRegisteredTagIds()) {
+            String id = tag.toString();
+            for (String pattern : this.tagPatterns) {
+                if (FilenameUtils.wildcardMatch(id, pattern, IOCase.INSENSITIVE)) {
+                    tags.add(tag);
+                    break;
+                }
+            }
+        }
+        this.tags = tags;
+    }
+    //endregion Methods
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.misc;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Immutable hash key identifying an item stack by item and nbt, ignoring the count.
+ * Two stacks with equal keys can be merged into each other.
+ */
+public class ItemStackKey {
+    //region Fields
+    protected final Item item;
+    protected final CompoundNBT tag;
+    protected final int hash;
+    //endregion Fields
+
+    //region Initialization
+    protected ItemStackKey(Item item, @Nullable CompoundNBT tag) {
+        this.item = item;
+        this.tag = tag;
+        this.hash = 31 * item.hashCode() + (tag == null ? 0 : tag.hashCode());
+    }
+    //endregion Initialization
+
+    //region Getter / Setter
+    public Item getItem() {
+        return this.item;
+    }
+
+    @Nullable
+    public CompoundNBT getTag() {
+        return this.tag;
+    }
+    //endregion Getter / Setter
+
+    //region Overrides
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        ItemStackKey other = (ItemStackKey) o;
+        return this.hash == other.hash && this.item == other.item && Objects.equals(this.tag, other.tag);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+    //endregion Overrides
+
+    //region Static Methods
+
+    /**
+     * Creates a key for the given stack. The stack nbt is copied, so later changes to the stack do not affect the key.
+     *
+     * @param stack the stack to create the key for.
+     * @return the key, or null if the stack is empty.
+     */
+    @Nullable
+    public static ItemStackKey of(@Nonnull ItemStack stack) {
+        if (stack.isEmpty())
+            return null;
+        return new ItemStackKey(stack.getItem(), stack.getTag() == null ? null : stack.getTag().copy());
+    }
+
+    /**
+     * Creates a key for looking up the given stack, without copying its nbt.
+     * The key shares the nbt of the stack, so it must not be stored, use {@link #of(ItemStack)} for that.
+     *
+     * @param stack the stack to create the key for.
+     * @return the key, or null if the stack is empty.
+     */
+    @Nullable
+    public static ItemStackKey probe(@Nonnull ItemStack stack) {
+        if (stack.isEmpty())
+            return null;
+        return new ItemStackKey(stack.getItem(), stack.getTag());
+    }
+    //endregion Static Methods
+
+    //region Methods
+
+    /**
+     * @param stack the stack to check.
+     * @return true if the given stack has the item and nbt described by this key.
+     */
+    public boolean matches(@Nonnull ItemStack stack) {
+        return !stack.isEmpty() && stack.getItem() == this.item && Objects.equals(this.tag, stack.getTag());
+    }
+
+    /**
+     * @param count the count of the new stack.
+     * @return a new stack with the item and nbt described by this key.
+     */
+    public ItemStack createStack(int count) {
+        ItemStack stack = new ItemStack(this.item, count);
+        if (this.tag != null)
+            stack.setTag(this.tag.copy());
+        return stack;
+    }
+    //endregion Methods
+}
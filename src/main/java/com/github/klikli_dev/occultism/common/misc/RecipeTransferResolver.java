@@ -0,0 +1,365 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.misc;
+
+import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
+import net.minecraft.inventory.CraftingInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Fills a crafting matrix for a recipe transfer, resolving the alternatives of all slots together.
+ * Alternatives are answered from one pass over the player inventory and the indexed amounts of the storage controller,
+ * preferring the first alternative in stock. The planned items are then extracted with one call per item and source.
+ * Stacks already in the matrix that match their slot are kept, so repeated transfers only top up the matrix.
+ */
+public class RecipeTransferResolver {
+
+    //region Fields
+    protected final IStorageController storageController;
+    protected final IItemHandler playerInventory;
+    protected final CraftingInventory craftMatrix;
+    /**
+     * The amount per item in the player inventory that is not yet planned for a slot.
+     */
+    protected final Map<ItemStackKey, Integer> playerAmounts = new LinkedHashMap<>();
+    /**
+     * The amount per item in storage that is not yet planned for a slot.
+     */
+    protected final Map<ItemStackKey, Integer> storageAmounts = new HashMap<>();
+    /**
+     * The stored items per alternative, alternatives are often shared between slots.
+     */
+    protected final Map<Predicate<ItemStack>, List<ItemStackKey>> storedKeys = new IdentityHashMap<>();
+    /**
+     * A single item stack per item, used to test alternatives and to create the matrix stacks.
+     */
+    protected final Map<ItemStackKey, ItemStack> stacks = new HashMap<>();
+    //endregion Fields
+
+    //region Initialization
+    public RecipeTransferResolver(IStorageController storageController, IItemHandler playerInventory,
+                                  CraftingInventory craftMatrix) {
+        this.storageController = storageController;
+        this.playerInventory = playerInventory;
+        this.craftMatrix = craftMatrix;
+    }
+    //endregion Initialization
+
+    //region Methods
+
+    /**
+     * Fills the crafting matrix with the given alternatives.
+     *
+     * @param slotAlternatives the accepted items per matrix slot, in order of preference.
+     * @param maxTransfer      true to fill each slot up to a full stack, false to place one item per slot.
+     */
+    public void transfer(List<? extends List<? extends Predicate<ItemStack>>> slotAlternatives, boolean maxTransfer) {
+        //disable change events while filling, so the container looks up the recipe once instead of once per slot
+        if (this.craftMatrix instanceof StorageControllerCraftingInventory &&
+            !((StorageControllerCraftingInventory) this.craftMatrix).disableEvents) {
+            StorageControllerCraftingInventory matrix = (StorageControllerCraftingInventory) this.craftMatrix;
+            matrix.disableEvents = true;
+            try {
+                this.fill(slotAlternatives, maxTransfer);
+            } finally {
+                matrix.disableEvents = false;
+            }
+            matrix.notifyContainer();
+        }
+        else {
+            this.fill(slotAlternatives, maxTransfer);
+        }
+    }
+
+    /**
+     * Plans and extracts the ingredients and places them in the crafting matrix.
+     *
+     * @param slotAlternatives the accepted items per matrix slot, in order of preference.
+     * @param maxTransfer      true to fill each slot up to a full stack, false to place one item per slot.
+     */
+    protected void fill(List<? extends List<? extends Predicate<ItemStack>>> slotAlternatives, boolean maxTransfer) {
+        int size = this.craftMatrix.getSizeInventory();
+        ItemStackKey[] slotKeys = new ItemStackKey[size];
+        int[] fromPlayer = new int[size];
+        int[] fromStorage = new int[size];
+
+        //keep stacks matching their slot, return everything else to storage
+        for (int slot = 0; slot < size; slot++) {
+            ItemStack stackInSlot = this.craftMatrix.getStackInSlot(slot);
+            if (stackInSlot.isEmpty())
+                continue;
+            if (this.matchesAny(stackInSlot, this.getAlternatives(slotAlternatives, slot))) {
+                slotKeys[slot] = ItemStackKey.of(stackInSlot);
+                this.stacks.putIfAbsent(slotKeys[slot], ItemHandlerHelper.copyStackWithSize(stackInSlot, 1));
+            }
+            else {
+                this.returnToStorage(slot);
+            }
+        }
+
+        this.collectPlayerAmounts();
+
+        //plan one item for each empty slot, player inventory first, as it is cheaper to access
+        for (int slot = 0; slot < size; slot++) {
+            //skip kept slots and slots that could not be returned to storage
+            if (!this.craftMatrix.getStackInSlot(slot).isEmpty())
+                continue;
+
+            List<? extends Predicate<ItemStack>> alternatives = this.getAlternatives(slotAlternatives, slot);
+            for (Predicate<ItemStack> alternative : alternatives) {
+                slotKeys[slot] = this.takeFromPlayer(alternative);
+                if (slotKeys[slot] != null) {
+                    fromPlayer[slot] = 1;
+                    break;
+                }
+            }
+            if (slotKeys[slot] != null)
+                continue;
+            for (Predicate<ItemStack> alternative : alternatives) {
+                slotKeys[slot] = this.takeFromStorage(alternative);
+                if (slotKeys[slot] != null) {
+                    fromStorage[slot] = 1;
+                    break;
+                }
+            }
+        }
+
+        if (maxTransfer)
+            this.planMaxTransfer(slotKeys, fromPlayer, fromStorage);
+
+        this.extract(slotKeys, fromPlayer, fromStorage);
+    }
+
+    /**
+     * Tops up the planned slots with the remaining amounts of their item, split evenly between slots sharing an item.
+     *
+     * @param slotKeys    the planned item per slot.
+     * @param fromPlayer  the planned amount per slot from the player inventory.
+     * @param fromStorage the planned amount per slot from storage.
+     */
+    protected void planMaxTransfer(ItemStackKey[] slotKeys, int[] fromPlayer, int[] fromStorage) {
+        Map<ItemStackKey, List<Integer>> slotsByKey = new LinkedHashMap<>();
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            if (slotKeys[slot] != null)
+                slotsByKey.computeIfAbsent(slotKeys[slot], key -> new ArrayList<>()).add(slot);
+        }
+
+        for (Map.Entry<ItemStackKey, List<Integer>> entry : slotsByKey.entrySet()) {
+            ItemStackKey key = entry.getKey();
+            List<Integer> slots = entry.getValue();
+            int planned = 0;
+            for (int slot : slots) {
+                planned += this.craftMatrix.getStackInSlot(slot).getCount() + fromPlayer[slot] + fromStorage[slot];
+            }
+            int available = this.playerAmounts.getOrDefault(key, 0) + this.getStorageAmount(key);
+            int maxStackSize = Math.min(this.stacks.get(key).getMaxStackSize(),
+                    this.craftMatrix.getInventoryStackLimit());
+            int target = Math.min(maxStackSize, (planned + available) / slots.size());
+
+            for (int slot : slots) {
+                int missing = target - this.craftMatrix.getStackInSlot(slot).getCount() - fromPlayer[slot] -
+                              fromStorage[slot];
+                if (missing <= 0)
+                    continue;
+                int takenFromPlayer = Math.min(missing, this.playerAmounts.getOrDefault(key, 0));
+                if (takenFromPlayer > 0) {
+                    this.playerAmounts.merge(key, -takenFromPlayer, Integer::sum);
+                    fromPlayer[slot] += takenFromPlayer;
+                }
+                int takenFromStorage = Math.min(missing - takenFromPlayer, this.storageAmounts.getOrDefault(key, 0));
+                if (takenFromStorage > 0) {
+                    this.storageAmounts.merge(key, -takenFromStorage, Integer::sum);
+                    fromStorage[slot] += takenFromStorage;
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts the planned amounts, with one pass over the player inventory and one storage call per item,
+     * and places them in the matrix.
+     *
+     * @param slotKeys    the planned item per slot.
+     * @param fromPlayer  the planned amount per slot from the player inventory.
+     * @param fromStorage the planned amount per slot from storage.
+     */
+    protected void extract(ItemStackKey[] slotKeys, int[] fromPlayer, int[] fromStorage) {
+        Map<ItemStackKey, Integer> playerTotals = new HashMap<>();
+        Map<ItemStackKey, Integer> storageTotals = new LinkedHashMap<>();
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            if (slotKeys[slot] == null)
+                continue;
+            if (fromPlayer[slot] > 0)
+                playerTotals.merge(slotKeys[slot], fromPlayer[slot], Integer::sum);
+            if (fromStorage[slot] > 0)
+                storageTotals.merge(slotKeys[slot], fromStorage[slot], Integer::sum);
+        }
+
+        Map<ItemStackKey, Integer> extracted = new HashMap<>();
+        if (!playerTotals.isEmpty()) {
+            for (int i = 0; i < this.playerInventory.getSlots(); i++) {
+                ItemStack stack = this.playerInventory.getStackInSlot(i);
+                if (stack.isEmpty())
+                    continue;
+                ItemStackKey key = ItemStackKey.of(stack);
+                int remaining = playerTotals.getOrDefault(key, 0);
+                if (remaining <= 0)
+                    continue;
+                int count = this.playerInventory.extractItem(i, Math.min(remaining, stack.getCount()), false)
+                                    .getCount();
+                playerTotals.put(key, remaining - count);
+                extracted.merge(key, count, Integer::sum);
+            }
+        }
+        for (Map.Entry<ItemStackKey, Integer> entry : storageTotals.entrySet()) {
+            ItemStackComparator comparator = new ItemStackComparator(this.stacks.get(entry.getKey()), true);
+            int count = this.storageController.getItemStack(comparator, entry.getValue(), false).getCount();
+            extracted.merge(entry.getKey(), count, Integer::sum);
+        }
+
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            if (slotKeys[slot] == null)
+                continue;
+            int available = extracted.getOrDefault(slotKeys[slot], 0);
+            int count = Math.min(fromPlayer[slot] + fromStorage[slot], available);
+            if (count <= 0)
+                continue;
+            extracted.put(slotKeys[slot], available - count);
+
+            ItemStack stackInSlot = this.craftMatrix.getStackInSlot(slot);
+            ItemStack template = stackInSlot.isEmpty() ? this.stacks.get(slotKeys[slot]) : stackInSlot;
+            this.craftMatrix.setInventorySlotContents(slot,
+                    ItemHandlerHelper.copyStackWithSize(template, stackInSlot.getCount() + count));
+        }
+    }
+
+    protected List<? extends Predicate<ItemStack>> getAlternatives(
+            List<? extends List<? extends Predicate<ItemStack>>> slotAlternatives, int slot) {
+        return slot < slotAlternatives.size() ? slotAlternatives.get(slot) : Collections.emptyList();
+    }
+
+    protected boolean matchesAny(ItemStack stack, List<? extends Predicate<ItemStack>> alternatives) {
+        for (Predicate<ItemStack> alternative : alternatives) {
+            if (alternative.test(stack))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the given matrix slot into storage, if storage is full the remainder stays in the matrix.
+     *
+     * @param slot the matrix slot.
+     */
+    protected void returnToStorage(int slot) {
+        ItemStack stackInSlot = this.craftMatrix.getStackInSlot(slot);
+        int remaining = this.storageController.insertStack(stackInSlot.copy(), false);
+        if (remaining == stackInSlot.getCount())
+            return;
+        this.craftMatrix.setInventorySlotContents(slot,
+                remaining == 0 ? ItemStack.EMPTY : ItemHandlerHelper.copyStackWithSize(stackInSlot, remaining));
+    }
+
+    protected void collectPlayerAmounts() {
+        for (int i = 0; i < this.playerInventory.getSlots(); i++) {
+            ItemStack stack = this.playerInventory.getStackInSlot(i);
+            if (stack.isEmpty())
+                continue;
+            ItemStackKey key = ItemStackKey.of(stack);
+            this.playerAmounts.merge(key, stack.getCount(), Integer::sum);
+            this.stacks.putIfAbsent(key, ItemHandlerHelper.copyStackWithSize(stack, 1));
+        }
+    }
+
+    /**
+     * Reserves one item matching the alternative from the player inventory.
+     *
+     * @param alternative the alternative to match.
+     * @return the reserved item, or null if none is left in the player inventory.
+     */
+    @Nullable
+    protected ItemStackKey takeFromPlayer(Predicate<ItemStack> alternative) {
+        for (Map.Entry<ItemStackKey, Integer> entry : this.playerAmounts.entrySet()) {
+            if (entry.getValue() > 0 && alternative.test(this.stacks.get(entry.getKey()))) {
+                entry.setValue(entry.getValue() - 1);
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserves one item matching the alternative from storage.
+     *
+     * @param alternative the alternative to match.
+     * @return the reserved item, or null if none is left in storage.
+     */
+    @Nullable
+    protected ItemStackKey takeFromStorage(Predicate<ItemStack> alternative) {
+        List<ItemStackKey> keys = this.storedKeys.computeIfAbsent(alternative, this::collectStorageAmounts);
+        for (ItemStackKey key : keys) {
+            int amount = this.storageAmounts.getOrDefault(key, 0);
+            if (amount > 0) {
+                this.storageAmounts.put(key, amount - 1);
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the amount of the given item in storage that is not yet planned for a slot.
+     *
+     * @param key the item.
+     * @return the remaining amount.
+     */
+    protected int getStorageAmount(ItemStackKey key) {
+        if (!this.storageAmounts.containsKey(key))
+            this.collectStorageAmounts(new ItemStackComparator(this.stacks.get(key), true));
+        return this.storageAmounts.getOrDefault(key, 0);
+    }
+
+    /**
+     * Looks up the stored items matching the comparator, and records their amounts unless already known.
+     *
+     * @param comparator the comparator to match.
+     * @return the matching items.
+     */
+    protected List<ItemStackKey> collectStorageAmounts(Predicate<ItemStack> comparator) {
+        List<ItemStackKey> keys = new ArrayList<>();
+        for (ItemStack stack : this.storageController.getAvailableStacks(comparator)) {
+            ItemStackKey key = ItemStackKey.of(stack);
+            keys.add(key);
+            this.storageAmounts.putIfAbsent(key, stack.getCount());
+            this.stacks.putIfAbsent(key, ItemHandlerHelper.copyStackWithSize(stack, 1));
+        }
+        return keys;
+    }
+    //endregion Methods
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.misc;
+
+import com.github.klikli_dev.occultism.api.common.data.SortDirection;
+import com.github.klikli_dev.occultism.api.common.data.SortType;
+import net.minecraft.network.PacketBuffer;
+
+import java.util.Objects;
+
+/**
+ * Immutable query for a window of the stacks in a storage controller, used by viewers of very large storages
+ * instead of receiving all stacks.
+ */
+public class StackQuery {
+    //region Fields
+    /**
+     * The amount of stacks visible in the storage gui (4 rows of 9 columns).
+     */
+    public static final int DEFAULT_COUNT = 4 * 9;
+    /**
+     * The max amount of stacks a single query can return, to keep answers small.
+     */
+    public static final int MAX_COUNT = 16 * 9;
+    public static final int MAX_SEARCH_TEXT_LENGTH = 30;
+
+    protected final String searchText;
+    protected final SortType sortType;
+    protected final SortDirection sortDirection;
+    protected final int offset;
+    protected final int count;
+    //endregion Fields
+
+    //region Initialization
+
+    /**
+     * @param searchText    the search text.
+     * @param sortType      the sort type.
+     * @param sortDirection the sort direction.
+     * @param offset        the index of the first matching stack to return.
+     * @param count         the max amount of stacks to return.
+     */
+    public StackQuery(String searchText, SortType sortType, SortDirection sortDirection, int offset, int count) {
+        this.searchText = searchText;
+        this.sortType = sortType != null ? sortType : SortType.AMOUNT;
+        this.sortDirection = sortDirection != null ? sortDirection : SortDirection.DOWN;
+        this.offset = Math.max(0, offset);
+        this.count = Math.max(0, Math.min(MAX_COUNT, count));
+    }
+    //endregion Initialization
+
+    //region Getter / Setter
+    public String getSearchText() {
+        return this.searchText;
+    }
+
+    public SortType getSortType() {
+        return this.sortType;
+    }
+
+    public SortDirection getSortDirection() {
+        return this.sortDirection;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+    //endregion Getter / Setter
+
+    //region Overrides
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        StackQuery other = (StackQuery) o;
+        return this.offset == other.offset && this.count == other.count && this.sortType == other.sortType &&
+               this.sortDirection == other.sortDirection && this.searchText.equals(other.searchText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.searchText, this.sortType, this.sortDirection, this.offset, this.count);
+    }
+    //endregion Overrides
+
+    //region Static Methods
+    public static StackQuery read(PacketBuffer buf) {
+        return new StackQuery(buf.readString(MAX_SEARCH_TEXT_LENGTH), SortType.get(buf.readVarInt()),
+                SortDirection.get(buf.readVarInt()), buf.readVarInt(), buf.readVarInt());
+    }
+    //endregion Static Methods
+
+    //region Methods
+    public void write(PacketBuffer buf) {
+        buf.writeString(this.searchText, MAX_SEARCH_TEXT_LENGTH);
+        buf.writeVarInt(this.sortType.getValue());
+        buf.writeVarInt(this.sortDirection.getValue());
+        buf.writeVarInt(this.offset);
+        buf.writeVarInt(this.count);
+    }
+    //endregion Methods
+}
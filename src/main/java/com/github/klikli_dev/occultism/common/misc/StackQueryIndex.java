@@ -0,0 +1,318 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.misc;
+
+import com.github.klikli_dev.occultism.api.common.data.SortType;
+import com.github.klikli_dev.occultism.util.TextUtil;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.*;
+
+/**
+ * Server side index of the stacks in a storage controller, answering {@link StackQuery}s.
+ * Keeps the stacks sorted per sort type and caches search results. Name and mod order only change if stacks are added
+ * or removed and are rebuilt then. Amount order changes with every count change, so it is kept in sorted sets that only
+ * re-insert the changed stacks.
+ * Item names are resolved in the server's language, so name search and name order may differ from what clients using
+ * another language see in the non-paged storage gui.
+ */
+public class StackQueryIndex {
+
+    //region Fields
+    protected static final int MAX_CACHED_SEARCHES = 32;
+    /**
+     * Sorts by count, breaking ties by name and then by creation order, so pages stay stable between queries.
+     */
+    protected static final Comparator<Entry> AMOUNT_ORDER =
+            Comparator.<Entry>comparingInt(entry -> entry.stack.getCount())
+                    .thenComparing(entry -> entry.name)
+                    .thenComparingLong(entry -> entry.id);
+
+    protected final Map<ItemStackKey, Entry> entries = new HashMap<>();
+    protected final Map<SortType, List<Entry>> sortedEntries = new EnumMap<>(SortType.class);
+    /**
+     * Cached search results by sort type and lower case search text, for all sort types but amount.
+     */
+    protected final Map<SortType, Map<String, List<Entry>>> filteredEntries = new EnumMap<>(SortType.class);
+    protected final NavigableSet<Entry> entriesByAmount = new TreeSet<>(AMOUNT_ORDER);
+    /**
+     * Cached search results in amount order by lower case search text.
+     */
+    protected final Map<String, NavigableSet<Entry>> filteredEntriesByAmount = new HashMap<>();
+    protected long nextEntryId;
+    protected boolean isValid;
+    //endregion Fields
+
+    //region Methods
+
+    /**
+     * Marks the index as outdated, it will be rebuilt from the item handler on the next query.
+     */
+    public void invalidate() {
+        this.isValid = false;
+        this.entries.clear();
+        this.sortedEntries.clear();
+        this.filteredEntries.clear();
+        this.entriesByAmount.clear();
+        this.filteredEntriesByAmount.clear();
+    }
+
+    /**
+     * Applies changes of the given keys. Does nothing if the index is outdated anyway.
+     *
+     * @param handler     the item handler of the storage controller.
+     * @param changedKeys the keys that were added, removed or changed count.
+     */
+    public void update(StorageControllerItemStackHandler handler, Collection<ItemStackKey> changedKeys) {
+        if (!this.isValid || changedKeys.isEmpty())
+            return;
+
+        boolean keysChanged = false;
+        for (ItemStackKey key : changedKeys) {
+            int count = handler.getCount(key);
+            Entry entry = this.entries.get(key);
+            if (count <= 0) {
+                if (entry != null) {
+                    this.entries.remove(key);
+                    this.removeByAmount(entry);
+                    keysChanged = true;
+                }
+            }
+            else if (entry == null) {
+                entry = this.createEntry(handler, key, count);
+                this.entries.put(key, entry);
+                this.addByAmount(entry);
+                keysChanged = true;
+            }
+            else if (entry.stack.getCount() != count) {
+                //the sets find entries by count, so it may only change while the entry is not in them.
+                this.removeByAmount(entry);
+                entry.stack.setCount(count);
+                this.addByAmount(entry);
+            }
+        }
+
+        if (keysChanged) {
+            this.sortedEntries.clear();
+            this.filteredEntries.clear();
+        }
+    }
+
+    /**
+     * Gets the stacks matching the given query.
+     *
+     * @param handler the item handler of the storage controller, used to rebuild the index if it is outdated.
+     * @param query   the query.
+     * @return the result.
+     */
+    public Result query(StorageControllerItemStackHandler handler, StackQuery query) {
+        if (!this.isValid)
+            this.rebuild(handler);
+
+        SortType sortType = query.getSortType();
+        String searchText = query.getSearchText().toLowerCase();
+        int offset = query.getOffset();
+        List<ItemStack> stacks = new ArrayList<>();
+        int size;
+        //amount sorts descending for "up", names sort descending for "down", same as the client side item view.
+        if (sortType == SortType.AMOUNT) {
+            NavigableSet<Entry> matches = this.getMatchesByAmount(searchText);
+            size = matches.size();
+            Iterator<Entry> iterator = query.getSortDirection().isDown() ? matches.iterator() :
+                                       matches.descendingIterator();
+            for (int i = 0; i < offset && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            for (int i = 0; i < query.getCount() && iterator.hasNext(); i++) {
+                stacks.add(iterator.next().stack.copy());
+            }
+        }
+        else {
+            List<Entry> matches = this.getMatches(sortType, searchText);
+            size = matches.size();
+            boolean reverse = query.getSortDirection().isDown();
+            int end = Math.min(size, offset + query.getCount());
+            for (int i = offset; i < end; i++) {
+                stacks.add(matches.get(reverse ? size - 1 - i : i).stack.copy());
+            }
+        }
+        return new Result(stacks, size, this.entries.size());
+    }
+
+    protected void rebuild(StorageControllerItemStackHandler handler) {
+        this.invalidate();
+        for (ItemStackKey key : handler.getKeys()) {
+            Entry entry = this.createEntry(handler, key, handler.getCount(key));
+            this.entries.put(key, entry);
+            this.entriesByAmount.add(entry);
+        }
+        this.isValid = true;
+    }
+
+    protected Entry createEntry(StorageControllerItemStackHandler handler, ItemStackKey key, int count) {
+        ItemStack stack = handler.getFirstStack(key).copy();
+        stack.setCount(count);
+        return new Entry(stack, this.nextEntryId++);
+    }
+
+    protected void addByAmount(Entry entry) {
+        this.entriesByAmount.add(entry);
+        for (Map.Entry<String, NavigableSet<Entry>> search : this.filteredEntriesByAmount.entrySet()) {
+            if (entry.matches(search.getKey()))
+                search.getValue().add(entry);
+        }
+    }
+
+    protected void removeByAmount(Entry entry) {
+        this.entriesByAmount.remove(entry);
+        for (NavigableSet<Entry> matches : this.filteredEntriesByAmount.values()) {
+            matches.remove(entry);
+        }
+    }
+
+    protected NavigableSet<Entry> getMatchesByAmount(String searchText) {
+        if (searchText.isEmpty())
+            return this.entriesByAmount;
+
+        NavigableSet<Entry> matches = this.filteredEntriesByAmount.get(searchText);
+        if (matches == null) {
+            if (this.filteredEntriesByAmount.size() >= MAX_CACHED_SEARCHES)
+                this.filteredEntriesByAmount.clear();
+            matches = new TreeSet<>(AMOUNT_ORDER);
+            for (Entry entry : this.entriesByAmount) {
+                if (entry.matches(searchText))
+                    matches.add(entry);
+            }
+            this.filteredEntriesByAmount.put(searchText, matches);
+        }
+        return matches;
+    }
+
+    protected List<Entry> getMatches(SortType sortType, String searchText) {
+        Map<String, List<Entry>> searches = this.filteredEntries.computeIfAbsent(sortType, k -> new HashMap<>());
+        List<Entry> matches = searches.get(searchText);
+        if (matches == null) {
+            if (searches.size() >= MAX_CACHED_SEARCHES)
+                searches.clear();
+            matches = this.filter(this.getSorted(sortType), searchText);
+            searches.put(searchText, matches);
+        }
+        return matches;
+    }
+
+    protected List<Entry> getSorted(SortType sortType) {
+        return this.sortedEntries.computeIfAbsent(sortType, k -> {
+            List<Entry> sorted = new ArrayList<>(this.entries.values());
+            Comparator<Entry> comparator = sortType == SortType.MOD ?
+                                           Comparator.comparing(entry -> entry.modName) :
+                                           Comparator.comparing(entry -> entry.name);
+            //break ties by name, so pages stay stable between queries.
+            sorted.sort(comparator.thenComparing(entry -> entry.name));
+            return sorted;
+        });
+    }
+
+    protected List<Entry> filter(List<Entry> sorted, String searchText) {
+        if (searchText.isEmpty())
+            return sorted;
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : sorted) {
+            if (entry.matches(searchText))
+                result.add(entry);
+        }
+        return result;
+    }
+    //endregion Methods
+
+    public static class Result {
+        //region Fields
+        public final List<ItemStack> stacks;
+        /**
+         * The amount of stacks matching the query.
+         */
+        public final int matchingCount;
+        /**
+         * The amount of distinct stacks in the storage controller.
+         */
+        public final int totalCount;
+        //endregion Fields
+
+        //region Initialization
+        public Result(List<ItemStack> stacks, int matchingCount, int totalCount) {
+            this.stacks = stacks;
+            this.matchingCount = matchingCount;
+            this.totalCount = totalCount;
+        }
+        //endregion Initialization
+    }
+
+    protected static class Entry {
+        //region Fields
+        protected final ItemStack stack;
+        protected final long id;
+        protected final String name;
+        protected final String modName;
+        protected final String tags;
+        //endregion Fields
+
+        //region Initialization
+        protected Entry(ItemStack stack, long id) {
+            this.stack = stack;
+            this.id = id;
+            //the server cannot resolve client translations, so this is the name in the server's language
+            this.name = stack.getDisplayName().getString().toLowerCase();
+            this.modName = TextUtil.getModNameForGameObject(stack.getItem()).toLowerCase();
+            StringBuilder tagStringBuilder = new StringBuilder();
+            for (ResourceLocation tag : stack.getItem().getTags()) {
+                tagStringBuilder.append(tag.toString()).append(' ');
+            }
+            this.tags = tagStringBuilder.toString().toLowerCase();
+        }
+        //endregion Initialization
+
+        //region Methods
+
+        /**
+         * Tooltips are only available on the client, so tooltip search (#) matches against the name instead.
+         *
+         * @param searchText the lower case search text.
+         * @return true if this entry matches the search text.
+         */
+        protected boolean matches(String searchText) {
+            if (searchText.startsWith("@")) {
+                return this.modName.contains(searchText.substring(1));
+            }
+            else if (searchText.startsWith("#")) {
+                return this.name.contains(searchText.substring(1));
+            }
+            else if (searchText.startsWith("$")) {
+                return this.tags.contains(searchText.substring(1));
+            }
+            else {
+                return this.name.contains(searchText);
+            }
+        }
+        //endregion Methods
+    }
+}
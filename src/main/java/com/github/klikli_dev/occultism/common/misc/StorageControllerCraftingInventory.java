@@ -94,4 +94,14 @@ public class StorageControllerCraftingInventory extends CraftingInventory {
     }
 
     //endregion Overrides
+
+    //region Methods
+
+    /**
+     * Notifies the container of the current contents, e.g. after changing them with events disabled.
+     */
+    public void notifyContainer() {
+        this.container.onCraftMatrixChanged(this);
+    }
+    //endregion Methods
 }
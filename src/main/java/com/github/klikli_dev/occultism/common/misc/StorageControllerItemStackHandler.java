@@ -24,6 +24,7 @@ package com.github.klikli_dev.occultism.common.misc;
 
 import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
 import com.github.klikli_dev.occultism.common.data.NonNullArrayList;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
@@ -31,8 +32,14 @@ import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nonnull;
-import java.util.Collections;
+import java.util.*;
 
+/**
+ * Item handler for storage controllers.
+ * Keeps an index of item keys (item + nbt) to slots, as well as free and partially filled slots, so that inserting,
+ * extracting and counting only has to look at slots holding matching items instead of scanning every slot.
+ * The index is updated via onContentsChanged, so all modifications need to go through the item handler methods.
+ */
 public class StorageControllerItemStackHandler extends ItemStackHandler {
 
     //region Fields
@@ -40,6 +47,34 @@ public class StorageControllerItemStackHandler extends ItemStackHandler {
     protected int maxSlots;
     protected boolean overrideItemStackSizes;
     protected IStorageController storageController;
+
+    /**
+     * The key for each slot, null for empty slots. Kept parallel to stacks.
+     */
+    protected List<ItemStackKey> slotKeys = new ArrayList<>();
+    protected Map<ItemStackKey, TreeSet<Integer>> slotsByKey = new HashMap<>();
+    /**
+     * Slots per key that can still take more items.
+     */
+    protected Map<ItemStackKey, TreeSet<Integer>> partialSlotsByKey = new HashMap<>();
+    protected Map<Item, Set<ItemStackKey>> keysByItem = new HashMap<>();
+    /**
+     * The indexed key instance for each key, so keys of stored stacks can be looked up without copying their nbt.
+     */
+    protected Map<ItemStackKey, ItemStackKey> internedKeys = new HashMap<>();
+    /**
+     * Empty slots within maxSlots.
+     */
+    protected TreeSet<Integer> freeSlots = new TreeSet<>();
+
+    /**
+     * Keys whose total count changed since the last call to clearChanges.
+     */
+    protected Set<ItemStackKey> changedKeys = new HashSet<>();
+    /**
+     * True if the index was rebuilt since the last call to clearChanges, in that case changedKeys is incomplete.
+     */
+    protected boolean indexRebuilt;
     //endregion Fields
 
     //region Initialization
@@ -51,25 +86,112 @@ public class StorageControllerItemStackHandler extends ItemStackHandler {
         this.maxSlots = size;
         this.maxStackSize = maxStackSize;
         this.overrideItemStackSizes = overrideItemStackSizes;
+        this.rebuildIndex();
     }
     //endregion Initialization
 
+    //region Getter / Setter
+
+    /**
+     * @return all distinct keys currently stored.
+     */
+    public Set<ItemStackKey> getKeys() {
+        return Collections.unmodifiableSet(this.slotsByKey.keySet());
+    }
+
+    /**
+     * @param item the item to get the keys for.
+     * @return all distinct keys currently stored for the given item.
+     */
+    public Set<ItemStackKey> getKeys(Item item) {
+        Set<ItemStackKey> keys = this.keysByItem.get(item);
+        return keys != null ? Collections.unmodifiableSet(keys) : Collections.emptySet();
+    }
+
+    /**
+     * @param key the key to get the slots for.
+     * @return the slots holding the given key, in ascending order.
+     */
+    public NavigableSet<Integer> getSlots(ItemStackKey key) {
+        TreeSet<Integer> slots = this.slotsByKey.get(key);
+        return slots != null ? Collections.unmodifiableNavigableSet(slots) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * @param key the key to get the first stack for.
+     * @return the stack in the first slot holding the given key, or an empty stack. Do not modify!
+     */
+    public ItemStack getFirstStack(ItemStackKey key) {
+        TreeSet<Integer> slots = this.slotsByKey.get(key);
+        return slots != null ? this.stacks.get(slots.first()) : ItemStack.EMPTY;
+    }
+
+    /**
+     * @param key the key to count.
+     * @return the total amount of items stored for the given key.
+     */
+    public int getCount(ItemStackKey key) {
+        TreeSet<Integer> slots = this.slotsByKey.get(key);
+        if (slots == null)
+            return 0;
+        int count = 0;
+        for (int slot : slots) {
+            count += this.stacks.get(slot).getCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the keys whose total count changed since the last call to clearChanges.
+     */
+    public Set<ItemStackKey> getChangedKeys() {
+        return Collections.unmodifiableSet(this.changedKeys);
+    }
+
+    /**
+     * @return true if the index was rebuilt since the last call to clearChanges, so individual changes are unknown.
+     */
+    public boolean isIndexRebuilt() {
+        return this.indexRebuilt;
+    }
+
+    /**
+     * @return the amount of non-empty slots.
+     */
+    public int getUsedSlots() {
+        int usedSlots = 0;
+        for (TreeSet<Integer> slots : this.slotsByKey.values()) {
+            usedSlots += slots.size();
+        }
+        return usedSlots;
+    }
+    //endregion Getter / Setter
+
     //region Overrides
     @Override
     public void setSize(int size) {
         if (size < 0)
             return;
         //store new desired size
+        int previousMaxSlots = this.maxSlots;
         this.maxSlots = size;
 
         //if we need to increase, we simply copy to a bigger list
         if (size > this.stacks.size()) {
             //add empty item stacks until we are full
+            this.slotKeys.addAll(Collections.nCopies(size - this.stacks.size(), null));
             this.stacks.addAll(Collections.nCopies(size - this.stacks.size(), ItemStack.EMPTY));
         }
         //if list got smaller we prune what wer can, the rest is removed ony by one when a full stack is removed
         else if (size < this.stacks.size()) {
             this.prune();
+            return;
+        }
+
+        //empty slots between the old and the new limit can now be inserted into
+        for (int slot = previousMaxSlots; slot < size; slot++) {
+            if (this.stacks.get(slot).isEmpty())
+                this.freeSlots.add(slot);
         }
     }
 
@@ -89,7 +211,7 @@ public class StorageControllerItemStackHandler extends ItemStackHandler {
         if (!simulate && this.stacks.size() > this.maxSlots) {
             //in real mode if we are above desired size, delete empty slots.
             if (this.stacks.get(slot).isEmpty())
-                this.stacks.remove(slot);
+                this.removeEmptySlot(slot);
         }
 
         return result;
@@ -139,13 +261,16 @@ public class StorageControllerItemStackHandler extends ItemStackHandler {
                 this.stacks.set(slot, stack);
             }
         }
+        this.rebuildIndex();
         this.onLoad();
     }
 
     @Override
     protected void onContentsChanged(int slot) {
+        this.updateIndex(slot);
         this.storageController.onContentsChanged();
     }
+    //endregion Overrides
 
     //region Methods
     public void prune() {
@@ -154,6 +279,194 @@ public class StorageControllerItemStackHandler extends ItemStackHandler {
             if (this.stacks.get(i).isEmpty())
                 this.stacks.remove(i);
         }
+        this.rebuildIndex();
+    }
+
+    /**
+     * Inserts the given stack, first merging into partially filled slots holding the same item, then into free slots.
+     * Has the same result as ItemHandlerHelper.insertItem, but only visits matching and free slots.
+     *
+     * @param stack    the stack to insert.
+     * @param simulate true to simulate.
+     * @return the remaining stack that could not be inserted.
+     */
+    @Nonnull
+    public ItemStack insertItem(@Nonnull ItemStack stack, boolean simulate) {
+        if (stack.isEmpty())
+            return stack;
+
+        TreeSet<Integer> partialSlots = this.partialSlotsByKey.get(ItemStackKey.probe(stack));
+        if (partialSlots != null) {
+            //slots are only removed from the set during insertion, so higher() safely continues the iteration.
+            Integer slot = partialSlots.isEmpty() ? null : partialSlots.first();
+            while (slot != null && !stack.isEmpty()) {
+                stack = this.insertItem(slot, stack, simulate);
+                slot = partialSlots.higher(slot);
+            }
+        }
+
+        Integer slot = this.freeSlots.isEmpty() ? null : this.freeSlots.first();
+        while (slot != null && !stack.isEmpty()) {
+            stack = this.insertItem(slot, stack, simulate);
+            slot = this.freeSlots.higher(slot);
+        }
+        return stack;
+    }
+
+    /**
+     * Removes the given empty slot and shifts the index entries of all following slots down by one.
+     * No stored amounts change, so this is not tracked as a change.
+     *
+     * @param slot the empty slot to remove.
+     */
+    protected void removeEmptySlot(int slot) {
+        this.stacks.remove(slot);
+        this.slotKeys.remove(slot);
+        this.freeSlots.remove(slot);
+        shiftSlotsDown(this.freeSlots, slot);
+        for (TreeSet<Integer> slots : this.slotsByKey.values()) {
+            shiftSlotsDown(slots, slot);
+        }
+        for (TreeSet<Integer> slots : this.partialSlotsByKey.values()) {
+            shiftSlotsDown(slots, slot);
+        }
+
+        //the first slot beyond the limit may have moved into it
+        int lastSlot = this.maxSlots - 1;
+        if (slot <= lastSlot && lastSlot < this.stacks.size() && this.stacks.get(lastSlot).isEmpty())
+            this.freeSlots.add(lastSlot);
+    }
+
+    /**
+     * Resets the tracked changes.
+     */
+    public void clearChanges() {
+        this.changedKeys.clear();
+        this.indexRebuilt = false;
+    }
+
+    /**
+     * Rebuilds the slot index from scratch. Needed whenever slots are removed, as that shifts slot indices.
+     */
+    protected void rebuildIndex() {
+        this.slotKeys = new ArrayList<>(Collections.nCopies(this.stacks.size(), null));
+        this.slotsByKey.clear();
+        this.partialSlotsByKey.clear();
+        this.keysByItem.clear();
+        this.internedKeys.clear();
+        this.freeSlots.clear();
+        this.changedKeys.clear();
+        this.indexRebuilt = true;
+        for (int slot = 0; slot < this.stacks.size(); slot++) {
+            ItemStack stack = this.stacks.get(slot);
+            if (stack.isEmpty()) {
+                if (slot < this.maxSlots)
+                    this.freeSlots.add(slot);
+            }
+            else {
+                ItemStackKey key = this.getKey(stack);
+                this.slotKeys.set(slot, key);
+                this.addToIndex(slot, key, stack);
+            }
+        }
+    }
+
+    /**
+     * Updates the index for the given slot after its contents changed.
+     *
+     * @param slot the changed slot.
+     */
+    protected void updateIndex(int slot) {
+        ItemStack stack = this.stacks.get(slot);
+        ItemStackKey oldKey = this.slotKeys.get(slot);
+        if (oldKey != null && oldKey.matches(stack)) {
+            //same item, only the count changed
+            this.changedKeys.add(oldKey);
+            this.updatePartial(slot, oldKey, stack);
+            return;
+        }
+
+        if (oldKey != null) {
+            this.changedKeys.add(oldKey);
+            this.removeFromIndex(slot, oldKey);
+        }
+
+        ItemStackKey newKey = this.getKey(stack);
+        this.slotKeys.set(slot, newKey);
+        if (newKey != null) {
+            this.changedKeys.add(newKey);
+            this.addToIndex(slot, newKey, stack);
+        }
+        else if (slot < this.maxSlots)
+            this.freeSlots.add(slot);
+    }
+
+    /**
+     * Gets the key for the given stack, reusing the indexed key if the stack is already stored, so the nbt is only
+     * copied for new keys.
+     *
+     * @param stack the stack.
+     * @return the key, or null if the stack is empty.
+     */
+    protected ItemStackKey getKey(ItemStack stack) {
+        ItemStackKey probe = ItemStackKey.probe(stack);
+        if (probe == null)
+            return null;
+        ItemStackKey key = this.internedKeys.get(probe);
+        return key != null ? key : ItemStackKey.of(stack);
+    }
+
+    protected void addToIndex(int slot, ItemStackKey key, ItemStack stack) {
+        this.freeSlots.remove(slot);
+        this.slotsByKey.computeIfAbsent(key, k -> new TreeSet<>()).add(slot);
+        this.keysByItem.computeIfAbsent(key.getItem(), k -> new HashSet<>()).add(key);
+        this.internedKeys.putIfAbsent(key, key);
+        this.updatePartial(slot, key, stack);
+    }
+
+    protected void removeFromIndex(int slot, ItemStackKey key) {
+        TreeSet<Integer> slots = this.slotsByKey.get(key);
+        if (slots != null) {
+            slots.remove(slot);
+            if (slots.isEmpty()) {
+                this.slotsByKey.remove(key);
+                this.partialSlotsByKey.remove(key);
+                this.internedKeys.remove(key);
+                Set<ItemStackKey> keys = this.keysByItem.get(key.getItem());
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty())
+                        this.keysByItem.remove(key.getItem());
+                }
+                return;
+            }
+        }
+        TreeSet<Integer> partialSlots = this.partialSlotsByKey.get(key);
+        if (partialSlots != null)
+            partialSlots.remove(slot);
+    }
+
+    protected static void shiftSlotsDown(TreeSet<Integer> slots, int removedSlot) {
+        NavigableSet<Integer> following = slots.tailSet(removedSlot, false);
+        if (following.isEmpty())
+            return;
+        List<Integer> shifted = new ArrayList<>(following.size());
+        for (int slot : following) {
+            shifted.add(slot - 1);
+        }
+        following.clear();
+        slots.addAll(shifted);
+    }
+
+    protected void updatePartial(int slot, ItemStackKey key, ItemStack stack) {
+        if (stack.getCount() < this.getStackLimit(slot, stack)) {
+            this.partialSlotsByKey.computeIfAbsent(key, k -> new TreeSet<>()).add(slot);
+        }
+        else {
+            TreeSet<Integer> partialSlots = this.partialSlotsByKey.get(key);
+            if (partialSlots != null)
+                partialSlots.remove(slot);
+        }
     }
     //endregion Methods
 
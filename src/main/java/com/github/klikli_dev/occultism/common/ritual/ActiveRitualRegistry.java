@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.ritual;
+
+import com.github.klikli_dev.occultism.Occultism;
+import com.github.klikli_dev.occultism.common.tile.GoldenSacrificialBowlTileEntity;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.*;
+
+/**
+ * Server side registry of golden sacrificial bowls with a running ritual, bucketed by chunk.
+ * Allows ritual event handlers to only look at nearby active rituals, and forwards block changes to the bowls whose
+ * pentacle area contains the changed block, so they only need to re-validate their pentacle if something actually
+ * changed.
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ActiveRitualRegistry {
+
+    //region Fields
+    protected static final Map<RegistryKey<World>, Map<Long, Set<GoldenSacrificialBowlTileEntity>>> ACTIVE_RITUALS =
+            new HashMap<>();
+    /**
+     * The largest validation radius of any bowl registered in a world, used to find bowls affected by block changes.
+     */
+    protected static final Map<RegistryKey<World>, Integer> MAX_VALIDATION_RADIUS = new HashMap<>();
+    //endregion Fields
+
+    //region Static Methods
+    public static void add(GoldenSacrificialBowlTileEntity bowl) {
+        World world = bowl.getWorld();
+        if (world == null || world.isRemote)
+            return;
+        ACTIVE_RITUALS.computeIfAbsent(world.getDimensionKey(), k -> new HashMap<>())
+                .computeIfAbsent(ChunkPos.asLong(bowl.getPos().getX() >> 4, bowl.getPos().getZ() >> 4),
+                        k -> new HashSet<>()).add(bowl);
+        MAX_VALIDATION_RADIUS.merge(world.getDimensionKey(), bowl.getValidationRadius(), Math::max);
+    }
+
+    public static void remove(GoldenSacrificialBowlTileEntity bowl) {
+        World world = bowl.getWorld();
+        if (world == null || world.isRemote)
+            return;
+        Map<Long, Set<GoldenSacrificialBowlTileEntity>> chunks = ACTIVE_RITUALS.get(world.getDimensionKey());
+        if (chunks == null)
+            return;
+        long chunk = ChunkPos.asLong(bowl.getPos().getX() >> 4, bowl.getPos().getZ() >> 4);
+        Set<GoldenSacrificialBowlTileEntity> bowls = chunks.get(chunk);
+        if (bowls != null && bowls.remove(bowl) && bowls.isEmpty())
+            chunks.remove(chunk);
+    }
+
+    /**
+     * Gets the golden bowls with a running ritual within the given range.
+     *
+     * @param world  the world.
+     * @param center the center of the search area.
+     * @param range  the max distance on each axis.
+     * @return a new list of golden bowls with a running ritual.
+     */
+    public static List<GoldenSacrificialBowlTileEntity> get(World world, BlockPos center, int range) {
+        Map<Long, Set<GoldenSacrificialBowlTileEntity>> chunks = ACTIVE_RITUALS.get(world.getDimensionKey());
+        if (chunks == null || chunks.isEmpty())
+            return Collections.emptyList();
+
+        List<GoldenSacrificialBowlTileEntity> result = new ArrayList<>();
+        for (int x = (center.getX() - range) >> 4; x <= (center.getX() + range) >> 4; x++) {
+            for (int z = (center.getZ() - range) >> 4; z <= (center.getZ() + range) >> 4; z++) {
+                Set<GoldenSacrificialBowlTileEntity> bowls = chunks.get(ChunkPos.asLong(x, z));
+                if (bowls == null)
+                    continue;
+                for (GoldenSacrificialBowlTileEntity bowl : bowls) {
+                    BlockPos pos = bowl.getPos();
+                    if (Math.abs(pos.getX() - center.getX()) <= range &&
+                        Math.abs(pos.getY() - center.getY()) <= range &&
+                        Math.abs(pos.getZ() - center.getZ()) <= range)
+                        result.add(bowl);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Notifies all active rituals that may be affected by a block change at the given position.
+     *
+     * @param world the world the block changed in.
+     * @param pos   the changed position.
+     */
+    public static void onBlockChanged(IWorld world, BlockPos pos) {
+        if (!(world instanceof World) || world.isRemote())
+            return;
+        RegistryKey<World> dimension = ((World) world).getDimensionKey();
+        Map<Long, Set<GoldenSacrificialBowlTileEntity>> chunks = ACTIVE_RITUALS.get(dimension);
+        if (chunks == null || chunks.isEmpty())
+            return;
+        for (GoldenSacrificialBowlTileEntity bowl : get((World) world, pos, MAX_VALIDATION_RADIUS.get(dimension))) {
+            if (bowl.isInValidationArea(pos))
+                bowl.invalidateValidationCache();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        onBlockChanged(event.getWorld(), event.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        //bowls deregister themselves when their chunk unloads, this just makes sure no stale bucket survives.
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote()) {
+            Map<Long, Set<GoldenSacrificialBowlTileEntity>> chunks =
+                    ACTIVE_RITUALS.get(((World) event.getWorld()).getDimensionKey());
+            if (chunks != null)
+                chunks.remove(event.getChunk().getPos().asLong());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote()) {
+            ACTIVE_RITUALS.remove(((World) event.getWorld()).getDimensionKey());
+            MAX_VALIDATION_RADIUS.remove(((World) event.getWorld()).getDimensionKey());
+        }
+    }
+    //endregion Static Methods
+}
@@ -163,7 +163,8 @@ public abstract class Ritual {
                            List<Ingredient> remainingAdditionalIngredients) {
         return this.recipe.getActivationItem().test(activationItem) &&
                 this.areAdditionalIngredientsFulfilled(world, goldenBowlPosition, remainingAdditionalIngredients) &&
-                this.recipe.getPentacle().validate(world, goldenBowlPosition);
+                (tileEntity != null ? tileEntity.isPentacleValid(this.recipe.getPentacle()) :
+                         this.recipe.getPentacle().validate(world, goldenBowlPosition));
     }
 
     /**
@@ -448,7 +449,27 @@ public abstract class Ritual {
      * @return a list of sacrificial bowls.
      */
     public List<SacrificialBowlTileEntity> getSacrificialBowls(World world, BlockPos goldenBowlPosition) {
+        //the golden bowl caches the bowl positions while a ritual is running
+        TileEntity goldenBowl = world.getTileEntity(goldenBowlPosition);
+        if (goldenBowl instanceof GoldenSacrificialBowlTileEntity)
+            return ((GoldenSacrificialBowlTileEntity) goldenBowl).getSacrificialBowls();
+
         List<SacrificialBowlTileEntity> result = new ArrayList<>();
+        for (BlockPos pos : findSacrificialBowlPositions(world, goldenBowlPosition)) {
+            result.add((SacrificialBowlTileEntity) world.getTileEntity(pos));
+        }
+        return result;
+    }
+
+    /**
+     * Scans the area around the golden bowl for sacrificial bowls.
+     *
+     * @param world              the world.
+     * @param goldenBowlPosition the block position of the golden bowl.
+     * @return a list of sacrificial bowl positions.
+     */
+    public static List<BlockPos> findSacrificialBowlPositions(World world, BlockPos goldenBowlPosition) {
+        List<BlockPos> result = new ArrayList<>();
         Iterable<BlockPos> blocksToCheck = BlockPos.getAllInBoxMutable(
                 goldenBowlPosition.add(-SACRIFICIAL_BOWL_RANGE, 0, -SACRIFICIAL_BOWL_RANGE),
                 goldenBowlPosition.add(SACRIFICIAL_BOWL_RANGE, 0, SACRIFICIAL_BOWL_RANGE));
@@ -456,7 +477,7 @@ public abstract class Ritual {
             TileEntity tileEntity = world.getTileEntity(blockToCheck);
             if (tileEntity instanceof SacrificialBowlTileEntity &&
                     !(tileEntity instanceof GoldenSacrificialBowlTileEntity)) {
-                result.add((SacrificialBowlTileEntity) tileEntity);
+                result.add(blockToCheck.toImmutable());
             }
         }
         return result;
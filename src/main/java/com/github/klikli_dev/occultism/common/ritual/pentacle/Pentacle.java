@@ -28,18 +28,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.github.klikli_dev.occultism.common.ritual.pentacle.PentacleMatcher.BlockMatcher;
 import com.google.gson.*;
 
-import net.minecraft.block.Block;
 import net.minecraft.network.PacketBuffer;
-import net.minecraft.tags.ITag;
-import net.minecraft.tags.TagCollectionManager;
 import net.minecraft.util.JSONUtils;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
-import net.minecraftforge.registries.ForgeRegistries;
 import vazkii.patchouli.api.IMultiblock;
 import vazkii.patchouli.api.IStateMatcher;
 import vazkii.patchouli.api.PatchouliAPI;
@@ -49,7 +46,9 @@ public class Pentacle {
     private ResourceLocation rl;
     private List<String> pattern;
     private Map<Character, JsonElement> mappings;
-    private IMultiblock matcher;
+    private IMultiblock multiblock;
+    private PentacleMatcher matcher;
+    private int radius;
 
     public Pentacle(ResourceLocation rl, List<String> pattern, Map<Character, JsonElement> mappings) {
         this.rl = rl;
@@ -67,24 +66,31 @@ public class Pentacle {
                     throw new IllegalArgumentException("Pentacle mappings is missing " + c);
             }
         }
+        this.radius = computeRadius(pattern);
+
         IPatchouliAPI api = PatchouliAPI.get();
         String[][] multiPattern = new String[1][pattern.size()];
         for (int i = 0; i < pattern.size(); i++)
             multiPattern[0][i] = pattern.get(pattern.size() - 1 - i);
+        Map<Character, BlockMatcher> blockMatchers = new HashMap<>();
         List<Object> multiMappings = new ArrayList<>();
         for (Entry<Character, JsonElement> entry : mappings.entrySet()) {
+            BlockMatcher blockMatcher = BlockMatcher.fromJson(entry.getValue());
+            blockMatchers.put(entry.getKey(), blockMatcher);
             multiMappings.add(entry.getKey());
-            multiMappings.add(parseStateMatcher(entry.getValue()));
+            multiMappings.add(blockMatcher.toStateMatcher());
         }
+        //the compiled matcher is used for validation, the multiblock is only used for the book visualization.
+        this.matcher = new PentacleMatcher(pattern, blockMatchers);
         // Space == whatever
         multiMappings.add(' ');
         multiMappings.add(api.anyMatcher());
 
         ResourceLocation multiRL = new ResourceLocation(rl.getNamespace(), "pentacle." + rl.getPath());
-        matcher = api.makeMultiblock(multiPattern, multiMappings.toArray());
-        matcher.setId(multiRL);
+        multiblock = api.makeMultiblock(multiPattern, multiMappings.toArray());
+        multiblock.setId(multiRL);
         try {
-            PatchouliAPI.get().registerMultiblock(multiRL, matcher);
+            PatchouliAPI.get().registerMultiblock(multiRL, multiblock);
         } catch (IllegalArgumentException e) { // Patchouli weirdness
         }
     }
@@ -93,8 +99,15 @@ public class Pentacle {
         return Util.makeTranslationKey("pentacle", rl);
     }
 
+    /**
+     * @return the max horizontal distance of any pattern position from the pentacle center.
+     */
+    public int getRadius() {
+        return this.radius;
+    }
+
     public boolean validate(World world, BlockPos pos) {
-        return matcher.validate(world, pos) != null;
+        return matcher.validate(world, pos);
     }
 
     public static Pentacle fromJson(ResourceLocation rl, JsonObject json) {
@@ -114,52 +127,23 @@ public class Pentacle {
         return new Pentacle(rl, pattern, mappings);
     }
 
-    public static IStateMatcher parseStateMatcher(JsonElement matcher){
-        if(matcher.isJsonObject()){
-            JsonObject jsonObject = matcher.getAsJsonObject();
-            Block display = null;
-            if(jsonObject.has("display"))
-            {
-                ResourceLocation displayRL = new ResourceLocation(JSONUtils.getString(jsonObject, "display"));
-                display = ForgeRegistries.BLOCKS.getValue(displayRL);
-                if (display == null)
-                    throw new JsonSyntaxException("Invalid display" + displayRL);
-            }
-            if(jsonObject.has("block")){
-                ResourceLocation blockRL = new ResourceLocation(JSONUtils.getString(jsonObject, "block"));
-                Block block = ForgeRegistries.BLOCKS.getValue(blockRL);
-                if (block == null)
-                    throw new JsonSyntaxException("Invalid block " + blockRL);
-
-                if(display != null){
-                    return PatchouliAPI.get().predicateMatcher(display, s -> s.getBlock() == block);
-                }
-                else {
-                    return PatchouliAPI.get().looseBlockMatcher(block);
-                }
-            }
-            else if(jsonObject.has("tag")){
-                ResourceLocation tagRL= new ResourceLocation(JSONUtils.getString(jsonObject, "tag"));
-                ITag<Block> tag = TagCollectionManager.getManager().getBlockTags().get(tagRL);
-                if(tag == null)
-                    throw new JsonSyntaxException("Invalid tag " + tagRL);
-                if(display == null)
-                    throw new JsonSyntaxException("No display set for tag " + tagRL);
-                return PatchouliAPI.get().predicateMatcher(display, s -> tag.contains(s.getBlock()));
-            }
-            else if(display != null){
-                return PatchouliAPI.get().displayOnlyMatcher(display);
+    private static int computeRadius(List<String> pattern) {
+        int rows = pattern.size();
+        int columns = rows > 0 ? pattern.get(0).length() : 0;
+        for (int row = 0; row < rows; row++) {
+            int column = pattern.get(row).indexOf('0');
+            if (column >= 0) {
+                return Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
             }
         }
+        //without a center any position in the pattern can be at the golden bowl
+        return Math.max(rows, columns);
+    }
 
-        //if it's a primitive we assume it's a block
-        ResourceLocation blockRL = new ResourceLocation(matcher.getAsString());
-        Block block = ForgeRegistries.BLOCKS.getValue(blockRL);
-        if (block == null)
-            throw new JsonSyntaxException("Invalid block " + blockRL);
-        return PatchouliAPI.get().looseBlockMatcher(block);
+    public static IStateMatcher parseStateMatcher(JsonElement matcher){
+        return BlockMatcher.fromJson(matcher).toStateMatcher();
     }
-    
+
     public void encode(PacketBuffer buffer) {
         buffer.writeInt(pattern.size());
         for (String row : pattern)
@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ *
+ * Copyright 2021 vemerion
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.ritual.pentacle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+
+import net.minecraft.block.Block;
+import net.minecraft.tags.ITag;
+import net.minecraft.tags.TagCollectionManager;
+import net.minecraft.util.JSONUtils;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.registries.ForgeRegistries;
+import vazkii.patchouli.api.IStateMatcher;
+import vazkii.patchouli.api.PatchouliAPI;
+
+/**
+ * A pentacle pattern compiled into flat lists of block checks relative to the pentacle center, one for each of the
+ * four horizontal rotations. Checks are ordered so that the rarest glyphs are tested first and mismatches fail early.
+ */
+public class PentacleMatcher {
+    //region Fields
+    public static final int ROTATIONS = 4;
+
+    protected final int[][] offsetsX;
+    protected final int[][] offsetsZ;
+    protected final BlockMatcher[] matchers;
+    //endregion Fields
+
+    //region Initialization
+
+    /**
+     * @param pattern  the pentacle pattern, as used by the patchouli multiblock.
+     * @param matchers the matcher for each pattern character. Characters without matcher match anything.
+     */
+    public PentacleMatcher(List<String> pattern, Map<Character, BlockMatcher> matchers) {
+        //patchouli maps the reversed pattern rows to x and the row characters to z, so we do the same.
+        int rows = pattern.size();
+        int centerX = rows / 2;
+        int centerZ = rows > 0 ? pattern.get(0).length() / 2 : 0;
+        Map<Character, Integer> glyphCounts = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            String line = pattern.get(row);
+            for (int column = 0; column < line.length(); column++) {
+                char c = line.charAt(column);
+                glyphCounts.merge(c, 1, Integer::sum);
+                if (c == '0') {
+                    centerX = rows - 1 - row;
+                    centerZ = column;
+                }
+            }
+        }
+
+        List<Check> checks = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            String line = pattern.get(row);
+            for (int column = 0; column < line.length(); column++) {
+                char c = line.charAt(column);
+                BlockMatcher matcher = matchers.get(c);
+                if (matcher != null && !matcher.isDisplayOnly())
+                    checks.add(new Check(rows - 1 - row - centerX, column - centerZ, matcher,
+                            c == '0' ? Integer.MAX_VALUE : glyphCounts.get(c)));
+            }
+        }
+        //the center is usually the golden bowl we are validating from, so it goes last.
+        checks.sort(Comparator.comparingInt(check -> check.count));
+
+        this.matchers = new BlockMatcher[checks.size()];
+        this.offsetsX = new int[ROTATIONS][checks.size()];
+        this.offsetsZ = new int[ROTATIONS][checks.size()];
+        for (int i = 0; i < checks.size(); i++) {
+            Check check = checks.get(i);
+            this.matchers[i] = check.matcher;
+            int x = check.x;
+            int z = check.z;
+            for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+                this.offsetsX[rotation][i] = x;
+                this.offsetsZ[rotation][i] = z;
+                //rotate clockwise by 90 degrees
+                int rotatedX = -z;
+                z = x;
+                x = rotatedX;
+            }
+        }
+    }
+    //endregion Initialization
+
+    //region Methods
+
+    /**
+     * Checks if the pentacle is present in any rotation.
+     *
+     * @param world the world.
+     * @param pos   the position of the pentacle center.
+     * @return true if the pentacle matches in any rotation.
+     */
+    public boolean validate(World world, BlockPos pos) {
+        BlockPos.Mutable checkPos = new BlockPos.Mutable();
+        for (int rotation = 0; rotation < ROTATIONS; rotation++) {
+            if (this.validate(world, pos, rotation, checkPos))
+                return true;
+        }
+        return false;
+    }
+
+    protected boolean validate(World world, BlockPos pos, int rotation, BlockPos.Mutable checkPos) {
+        int[] offsetsX = this.offsetsX[rotation];
+        int[] offsetsZ = this.offsetsZ[rotation];
+        for (int i = 0; i < this.matchers.length; i++) {
+            checkPos.setPos(pos.getX() + offsetsX[i], pos.getY(), pos.getZ() + offsetsZ[i]);
+            if (!this.matchers[i].test(world.getBlockState(checkPos).getBlock()))
+                return false;
+        }
+        return true;
+    }
+    //endregion Methods
+
+    public static class BlockMatcher {
+        //region Fields
+        protected final Block display;
+        protected final Block block;
+        protected final ITag<Block> tag;
+        //endregion Fields
+
+        //region Initialization
+        public BlockMatcher(Block display, Block block, ITag<Block> tag) {
+            this.display = display;
+            this.block = block;
+            this.tag = tag;
+        }
+        //endregion Initialization
+
+        //region Getter / Setter
+
+        /**
+         * @return true if this matcher is only used for display and matches any block.
+         */
+        public boolean isDisplayOnly() {
+            return this.block == null && this.tag == null;
+        }
+        //endregion Getter / Setter
+
+        //region Methods
+        public boolean test(Block block) {
+            return this.block != null ? this.block == block : this.tag.contains(block);
+        }
+
+        /**
+         * @return the patchouli state matcher used to display this matcher in the book.
+         */
+        public IStateMatcher toStateMatcher() {
+            if (this.tag != null)
+                return PatchouliAPI.get().predicateMatcher(this.display, s -> this.tag.contains(s.getBlock()));
+            if (this.block != null) {
+                if (this.display != null)
+                    return PatchouliAPI.get().predicateMatcher(this.display, s -> s.getBlock() == this.block);
+                return PatchouliAPI.get().looseBlockMatcher(this.block);
+            }
+            return PatchouliAPI.get().displayOnlyMatcher(this.display);
+        }
+        //endregion Methods
+
+        //region Static Methods
+        public static BlockMatcher fromJson(JsonElement matcher) {
+            if (matcher.isJsonObject()) {
+                JsonObject jsonObject = matcher.getAsJsonObject();
+                Block display = null;
+                if (jsonObject.has("display")) {
+                    ResourceLocation displayRL = new ResourceLocation(JSONUtils.getString(jsonObject, "display"));
+                    display = ForgeRegistries.BLOCKS.getValue(displayRL);
+                    if (display == null)
+                        throw new JsonSyntaxException("Invalid display" + displayRL);
+                }
+                if (jsonObject.has("block")) {
+                    return new BlockMatcher(display, getBlock(JSONUtils.getString(jsonObject, "block")), null);
+                }
+                else if (jsonObject.has("tag")) {
+                    ResourceLocation tagRL = new ResourceLocation(JSONUtils.getString(jsonObject, "tag"));
+                    ITag<Block> tag = TagCollectionManager.getManager().getBlockTags().get(tagRL);
+                    if (tag == null)
+                        throw new JsonSyntaxException("Invalid tag " + tagRL);
+                    if (display == null)
+                        throw new JsonSyntaxException("No display set for tag " + tagRL);
+                    return new BlockMatcher(display, null, tag);
+                }
+                else if (display != null) {
+                    return new BlockMatcher(display, null, null);
+                }
+            }
+
+            //if it's a primitive we assume it's a block
+            return new BlockMatcher(null, getBlock(matcher.getAsString()), null);
+        }
+
+        private static Block getBlock(String id) {
+            ResourceLocation blockRL = new ResourceLocation(id);
+            Block block = ForgeRegistries.BLOCKS.getValue(blockRL);
+            if (block == null)
+                throw new JsonSyntaxException("Invalid block " + blockRL);
+            return block;
+        }
+        //endregion Static Methods
+    }
+
+    protected static class Check {
+        //region Fields
+        protected final int x;
+        protected final int z;
+        protected final BlockMatcher matcher;
+        protected final int count;
+        //endregion Fields
+
+        //region Initialization
+        public Check(int x, int z, BlockMatcher matcher, int count) {
+            this.x = x;
+            this.z = z;
+            this.matcher = matcher;
+            this.count = count;
+        }
+        //endregion Initialization
+    }
+}
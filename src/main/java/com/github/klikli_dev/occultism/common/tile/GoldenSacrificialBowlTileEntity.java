@@ -30,11 +30,13 @@ import java.util.UUID;
 import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.common.item.DummyTooltipItem;
 import com.github.klikli_dev.occultism.common.item.spirit.BookOfBindingItem;
+import com.github.klikli_dev.occultism.common.ritual.ActiveRitualRegistry;
 import com.github.klikli_dev.occultism.common.ritual.Ritual;
+import com.github.klikli_dev.occultism.common.ritual.pentacle.Pentacle;
 import com.github.klikli_dev.occultism.crafting.recipe.RitualRecipe;
+import com.github.klikli_dev.occultism.crafting.recipe.RitualRecipeIndex;
 import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
 import com.github.klikli_dev.occultism.registry.OccultismParticles;
-import com.github.klikli_dev.occultism.registry.OccultismRecipes;
 import com.github.klikli_dev.occultism.registry.OccultismRituals;
 import com.github.klikli_dev.occultism.registry.OccultismTiles;
 import com.github.klikli_dev.occultism.util.EntityUtil;
@@ -50,6 +52,7 @@ import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.particles.ParticleTypes;
 import net.minecraft.tileentity.ITickableTileEntity;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
 import net.minecraft.util.Hand;
 import net.minecraft.util.ResourceLocation;
@@ -73,6 +76,17 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
     public boolean itemUseProvided;
     public int currentTime;
 
+    /**
+     * Pentacle and sacrificial bowl validation results are cached while a ritual is running and re-validated if a
+     * block in the pentacle area changes, or after this amount of ticks in case a change was not detected.
+     */
+    public static final int VALIDATION_CACHE_TICKS = 20 * 5;
+    protected boolean isValidationCacheDirty = true;
+    protected long lastValidationTime;
+    protected Pentacle validatedPentacle;
+    protected boolean isPentacleValid;
+    protected List<BlockPos> sacrificialBowlPositions = new ArrayList<>();
+
     //endregion Fields
 
     //region Initialization
@@ -148,6 +162,25 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
         return super.writeNetwork(compound);
     }
 
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (this.currentRitualRecipe != null)
+            ActiveRitualRegistry.add(this);
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        ActiveRitualRegistry.remove(this);
+    }
+
+    @Override
+    public void remove() {
+        ActiveRitualRegistry.remove(this);
+        super.remove();
+    }
+
     @Override
     public void tick() {
         if (!this.world.isRemote && this.currentRitualRecipe != null) {
@@ -225,6 +258,77 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
     //endregion Overrides
 
     //region Methods
+
+    /**
+     * @param pos the position to check.
+     * @return true if a block change at the given position can affect the validity of the running ritual.
+     */
+    public boolean isInValidationArea(BlockPos pos) {
+        if (pos.getY() != this.pos.getY())
+            return false;
+        int radius = this.getValidationRadius();
+        return Math.abs(pos.getX() - this.pos.getX()) <= radius && Math.abs(pos.getZ() - this.pos.getZ()) <= radius;
+    }
+
+    /**
+     * @return the horizontal radius around this bowl in which block changes can affect the running ritual.
+     */
+    public int getValidationRadius() {
+        int radius = Ritual.SACRIFICIAL_BOWL_RANGE;
+        Pentacle pentacle = this.currentRitualRecipe != null ? this.currentRitualRecipe.getPentacle() : null;
+        if (pentacle != null)
+            radius = Math.max(radius, pentacle.getRadius());
+        return radius;
+    }
+
+    public void invalidateValidationCache() {
+        this.isValidationCacheDirty = true;
+    }
+
+    /**
+     * Validates the given pentacle around this bowl. While a ritual is running the result is cached.
+     *
+     * @param pentacle the pentacle to validate.
+     * @return true if the pentacle is valid.
+     */
+    public boolean isPentacleValid(Pentacle pentacle) {
+        this.updateValidationCache();
+        if (this.validatedPentacle != pentacle) {
+            this.isPentacleValid = pentacle.validate(this.world, this.pos);
+            this.validatedPentacle = pentacle;
+        }
+        return this.isPentacleValid;
+    }
+
+    /**
+     * Gets the sacrificial bowls in range of this bowl. While a ritual is running the bowl positions are cached.
+     *
+     * @return the sacrificial bowls.
+     */
+    public List<SacrificialBowlTileEntity> getSacrificialBowls() {
+        this.updateValidationCache();
+        List<SacrificialBowlTileEntity> result = new ArrayList<>(this.sacrificialBowlPositions.size());
+        for (BlockPos pos : this.sacrificialBowlPositions) {
+            TileEntity tileEntity = this.world.getTileEntity(pos);
+            if (tileEntity instanceof SacrificialBowlTileEntity)
+                result.add((SacrificialBowlTileEntity) tileEntity);
+        }
+        return result;
+    }
+
+    protected void updateValidationCache() {
+        //without a running ritual we are not notified of block changes, so we only rely on the cache within a tick
+        long elapsed = this.world.getGameTime() - this.lastValidationTime;
+        boolean isCacheValid = !this.isValidationCacheDirty &&
+                               (this.currentRitualRecipe != null ? elapsed < VALIDATION_CACHE_TICKS : elapsed == 0);
+        if (!isCacheValid) {
+            this.sacrificialBowlPositions = Ritual.findSacrificialBowlPositions(this.world, this.pos);
+            this.validatedPentacle = null;
+            this.isValidationCacheDirty = false;
+            this.lastValidationTime = this.world.getGameTime();
+        }
+    }
+
     public void restoreCastingPlayer() {
         //every 30 seconds try to restore the casting player
         if (this.castingPlayer == null && this.castingPlayerId != null &&
@@ -250,9 +354,7 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
             if (this.currentRitualRecipe == null) {
                 //Identify the ritual in the ritual registry.
 
-                RitualRecipe ritualRecipe = this.world.getRecipeManager().getRecipesForType(OccultismRecipes.RITUAL_TYPE.get()).stream().filter(
-                        r -> r.matches(world, pos, activationItem)
-                ).findFirst().orElse(null);
+                RitualRecipe ritualRecipe = RitualRecipeIndex.findRecipe(world, pos, activationItem);
 
                 if (ritualRecipe != null) {
                     if (ritualRecipe.getRitual().isValid(world, pos, this, player, activationItem,
@@ -296,6 +398,8 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
             this.itemUseProvided = false;
             this.consumedIngredients.clear();
             this.remainingAdditionalIngredients = this.currentRitualRecipe.getIngredients();
+            this.invalidateValidationCache();
+            ActiveRitualRegistry.add(this);
             //place activation item in handler
             IItemHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
             handler.insertItem(0, activationItem.split(1), false);
@@ -330,6 +434,8 @@ public class GoldenSacrificialBowlTileEntity extends SacrificialBowlTileEntity i
             if (this.remainingAdditionalIngredients != null)
                 this.remainingAdditionalIngredients.clear();
             this.consumedIngredients.clear();
+            this.invalidateValidationCache();
+            ActiveRitualRegistry.remove(this);
             this.markDirty();
             this.markNetworkDirty();
         }
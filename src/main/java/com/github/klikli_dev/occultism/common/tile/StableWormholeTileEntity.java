@@ -122,7 +122,7 @@ public class StableWormholeTileEntity extends NetworkedTileEntity implements ISt
                 //only reset the storage controller position if we are on logical server -> that means the position is not accessible.
                 //if we are on logical client it simply means we are out of render range, so we do not reset the pos
                 //resetting it would cause issues with e.g. stable wormhole
-                this.linkedStorageControllerPosition = null;
+                this.updateLinkedStorageControllerPosition(null);
                 this.world.setBlockState(this.pos, this.getBlockState().with(StableWormholeBlock.LINKED, false), 2);
             }
         }
@@ -136,7 +136,25 @@ public class StableWormholeTileEntity extends NetworkedTileEntity implements ISt
 
     @Override
     public void setLinkedStorageControllerPosition(GlobalBlockPos blockPos) {
-        this.linkedStorageControllerPosition = blockPos;
+        this.updateLinkedStorageControllerPosition(blockPos);
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        StorageProxyRegistry.add(this);
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        StorageProxyRegistry.remove(this);
+    }
+
+    @Override
+    public void remove() {
+        StorageProxyRegistry.remove(this);
+        super.remove();
     }
 
     @Nonnull
@@ -153,8 +171,8 @@ public class StableWormholeTileEntity extends NetworkedTileEntity implements ISt
     @Override
     public void readNetwork(CompoundNBT compound) {
         if (compound.contains("linkedStorageControllerPosition"))
-            this.linkedStorageControllerPosition = GlobalBlockPos.from(compound.getCompound(
-                    "linkedStorageControllerPosition"));
+            this.updateLinkedStorageControllerPosition(GlobalBlockPos.from(compound.getCompound(
+                    "linkedStorageControllerPosition")));
 
         this.setSortDirection(SortDirection.get(compound.getInt("sortDirection")));
         this.setSortType(SortType.get(compound.getInt("sortType")));
@@ -209,5 +227,18 @@ public class StableWormholeTileEntity extends NetworkedTileEntity implements ISt
     //endregion Overrides
 
     //region Methods
+
+    /**
+     * Sets the linked storage controller position and moves this wormhole to the new controller in the
+     * {@link StorageProxyRegistry}.
+     *
+     * @param blockPos the new storage controller position, may be null.
+     */
+    protected void updateLinkedStorageControllerPosition(GlobalBlockPos blockPos) {
+        StorageProxyRegistry.remove(this);
+        this.linkedStorageControllerPosition = blockPos;
+        if (!this.isRemoved())
+            StorageProxyRegistry.add(this);
+    }
     //endregion Methods
 }
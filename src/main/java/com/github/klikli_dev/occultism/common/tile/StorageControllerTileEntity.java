@@ -25,6 +25,7 @@ package com.github.klikli_dev.occultism.common.tile;
 
 import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.api.common.container.IItemStackComparator;
+import com.github.klikli_dev.occultism.api.common.container.IStorageControllerContainer;
 import com.github.klikli_dev.occultism.api.common.data.GlobalBlockPos;
 import com.github.klikli_dev.occultism.api.common.data.MachineReference;
 import com.github.klikli_dev.occultism.api.common.data.SortDirection;
@@ -38,9 +39,15 @@ import com.github.klikli_dev.occultism.common.entity.spirit.SpiritEntity;
 import com.github.klikli_dev.occultism.common.job.ManageMachineJob;
 import com.github.klikli_dev.occultism.common.misc.DepositOrder;
 import com.github.klikli_dev.occultism.common.misc.ItemStackComparator;
+import com.github.klikli_dev.occultism.common.misc.ItemStackKey;
+import com.github.klikli_dev.occultism.common.misc.StackQuery;
+import com.github.klikli_dev.occultism.common.misc.StackQueryIndex;
 import com.github.klikli_dev.occultism.common.misc.StorageControllerItemStackHandler;
 import com.github.klikli_dev.occultism.exceptions.ItemHandlerMissingException;
+import com.github.klikli_dev.occultism.network.MessageUpdateLinkedMachines;
+import com.github.klikli_dev.occultism.network.MessageUpdateStackPage;
 import com.github.klikli_dev.occultism.network.MessageUpdateStacks;
+import com.github.klikli_dev.occultism.network.OccultismPackets;
 import com.github.klikli_dev.occultism.registry.OccultismBlocks;
 import com.github.klikli_dev.occultism.registry.OccultismItems;
 import com.github.klikli_dev.occultism.registry.OccultismTiles;
@@ -51,10 +58,12 @@ import net.minecraft.block.BlockState;
 import net.minecraft.block.DirectionalBlock;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.tileentity.ITickableTileEntity;
@@ -68,7 +77,6 @@ import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.fml.RegistryObject;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
-import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -81,6 +89,10 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
 
     //region Fields
     public static final int MAX_STABILIZER_DISTANCE = 5;
+    /**
+     * The amount of changed stacks to remember for delta updates. Viewers further behind get a full snapshot.
+     */
+    public static final int MAX_STACK_CHANGES = 512;
 
     protected static final List<RegistryObject<? extends Block>> BLOCK_BLACKLIST = Stream.of(
             OccultismBlocks.STORAGE_CONTROLLER).collect(Collectors.toList());
@@ -90,7 +102,7 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
     public Map<GlobalBlockPos, UUID> depositOrderSpirits = new HashMap<>();
     protected SortDirection sortDirection = SortDirection.DOWN;
     protected SortType sortType = SortType.AMOUNT;
-    protected LazyOptional<ItemStackHandler> itemStackHandler =
+    protected LazyOptional<StorageControllerItemStackHandler> itemStackHandler =
             LazyOptional.of(() -> new StorageControllerItemStackHandler(this,
                     Occultism.SERVER_CONFIG.storage.controllerBaseSlots.get(),
                     Occultism.SERVER_CONFIG.storage.controllerStackSize.get(),
@@ -102,6 +114,34 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
     protected GlobalBlockPos globalPos;
 
     protected MessageUpdateStacks cachedMessageUpdateStacks;
+
+    /**
+     * Revision of the stored stacks, increased whenever stacks changed since the last update message.
+     * Starts at a random value, so viewers of a previous instance of this tile entity do not accidentally match.
+     */
+    protected int stackRevision = new Random().nextInt(Integer.MAX_VALUE / 2);
+    /**
+     * Changes are known for all revisions after this one.
+     */
+    protected int trackedSinceRevision = this.stackRevision;
+    /**
+     * The revision each key was last changed in, ordered by change.
+     */
+    protected LinkedHashMap<ItemStackKey, Integer> stackChangeRevisions = new LinkedHashMap<>();
+    protected Map<UUID, Integer> stackViewerRevisions = new HashMap<>();
+    /**
+     * The queries of viewers that only receive the stacks matching their query, see {@link StackQuery}.
+     */
+    protected Map<UUID, StackQuery> stackViewerQueries = new HashMap<>();
+    protected StackQueryIndex stackQueryIndex = new StackQueryIndex();
+    /**
+     * True if stacks changed since viewers were last updated.
+     */
+    protected boolean stackViewersDirty = false;
+    /**
+     * True if linked machines changed since viewers were last updated.
+     */
+    protected boolean linkedMachineViewersDirty = false;
     //endregion Fields
 
     //region Initialization
@@ -170,30 +210,116 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
 
     @Override
     public List<ItemStack> getStacks() {
-        ItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
-        int size = handler.getSlots();
-        int usedSlots = 0;
-        List<ItemStack> result = new ArrayList<>(size);
-        for (int slot = 0; slot < size; slot++) {
-            ItemStack stack = handler.getStackInSlot(slot);
-            if (!stack.isEmpty()) {
-                usedSlots++;
-                this.mergeIntoList(result, stack.copy());
-            }
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        Set<ItemStackKey> keys = handler.getKeys();
+        List<ItemStack> result = new ArrayList<>(keys.size());
+        for (ItemStackKey key : keys) {
+            ItemStack stack = handler.getFirstStack(key).copy();
+            stack.setCount(handler.getCount(key));
+            result.add(stack);
         }
-        this.usedSlots = usedSlots;
+        this.usedSlots = handler.getUsedSlots();
         return result;
     }
 
     @Override
     public MessageUpdateStacks getMessageUpdateStacks() {
+        this.updateStackRevision();
         if (this.cachedMessageUpdateStacks == null) {
             List<ItemStack> stacks = this.getStacks();
-            this.cachedMessageUpdateStacks = new MessageUpdateStacks(stacks, this.getUsedSlots(), this.getMaxSlots());
+            this.cachedMessageUpdateStacks = new MessageUpdateStacks(stacks, this.getUsedSlots(), this.getMaxSlots(),
+                    this.stackRevision);
         }
         return this.cachedMessageUpdateStacks;
     }
 
+    @Override
+    public MessageUpdateStacks getMessageUpdateStacks(UUID viewer) {
+        this.updateStackRevision();
+        int viewerRevision = this.stackViewerRevisions.getOrDefault(viewer, -1);
+        this.stackViewerRevisions.put(viewer, this.stackRevision);
+
+        //viewer has no stacks or we do not know all changes since its revision.
+        if (viewerRevision < this.trackedSinceRevision || viewerRevision > this.stackRevision)
+            return this.getMessageUpdateStacks();
+
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        List<ItemStack> changedStacks = new ArrayList<>();
+        List<ItemStack> removedStacks = new ArrayList<>();
+        for (Map.Entry<ItemStackKey, Integer> entry : this.stackChangeRevisions.entrySet()) {
+            if (entry.getValue() <= viewerRevision)
+                continue;
+
+            ItemStackKey key = entry.getKey();
+            int count = handler.getCount(key);
+            if (count > 0) {
+                ItemStack stack = handler.getFirstStack(key).copy();
+                stack.setCount(count);
+                changedStacks.add(stack);
+            }
+            else {
+                removedStacks.add(key.createStack(1));
+            }
+        }
+        this.usedSlots = handler.getUsedSlots();
+        return new MessageUpdateStacks(changedStacks, removedStacks, this.usedSlots, this.getMaxSlots(),
+                viewerRevision, this.stackRevision);
+    }
+
+    @Override
+    public void setStackRevision(UUID viewer, int revision) {
+        if (this.stackViewerQueries.containsKey(viewer))
+            return;
+
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        if (revision == -1 &&
+            handler.getKeys().size() > Occultism.SERVER_CONFIG.storage.pagedStackQueryThreshold.get()) {
+            //too many stacks to send all of them, the viewer will send its own query once it receives the first page.
+            this.setStackQuery(viewer, new StackQuery("", this.getSortType(), this.getSortDirection(), 0,
+                    StackQuery.DEFAULT_COUNT));
+            return;
+        }
+        this.stackViewerRevisions.put(viewer, revision);
+    }
+
+    @Override
+    public void setStackQuery(UUID viewer, StackQuery query) {
+        this.stackViewerRevisions.remove(viewer);
+        this.stackViewerQueries.put(viewer, query);
+    }
+
+    @Override
+    public void sendStacksTo(ServerPlayerEntity player) {
+        StackQuery query = this.stackViewerQueries.get(player.getUniqueID());
+        if (query != null)
+            OccultismPackets.sendTo(player, this.getMessageUpdateStackPage(query));
+        else
+            OccultismPackets.sendTo(player, this.getMessageUpdateStacks(player.getUniqueID()));
+    }
+
+    @Override
+    public void removeStackViewer(UUID viewer) {
+        this.stackViewerRevisions.remove(viewer);
+        this.stackViewerQueries.remove(viewer);
+        if (this.stackViewerQueries.isEmpty())
+            this.stackQueryIndex.invalidate();
+    }
+
+    /**
+     * Gets a message with the stacks matching the given query.
+     *
+     * @param query the query.
+     * @return the stack page message.
+     */
+    public MessageUpdateStackPage getMessageUpdateStackPage(StackQuery query) {
+        this.updateStackRevision();
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        StackQueryIndex.Result result = this.stackQueryIndex.query(handler, query);
+        this.usedSlots = handler.getUsedSlots();
+        return new MessageUpdateStackPage(query, result.stacks, result.matchingCount, this.usedSlots,
+                this.getMaxSlots());
+    }
+
     @Override
     public int getMaxSlots() {
         return this.maxSlots;
@@ -203,6 +329,7 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
     public void setMaxSlots(int slots) {
         this.maxSlots = slots;
         this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new).setSize(this.maxSlots);
+        this.stackViewersDirty = true;
         this.markNetworkDirty();
     }
 
@@ -219,11 +346,13 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
     @Override
     public void setLinkedMachines(Map<GlobalBlockPos, MachineReference> machines) {
         this.linkedMachines = machines;
+        this.linkedMachineViewersDirty = true;
     }
 
     @Override
     public void linkMachine(MachineReference machine) {
         this.linkedMachines.put(machine.globalPos, machine);
+        this.linkedMachineViewersDirty = true;
     }
 
     @Override
@@ -258,9 +387,19 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
         this.depositOrderSpirits.put(linkedMachinePosition, spiritId);
     }
 
+    @Override
+    public void setQueuedDepositOrders(GlobalBlockPos linkedMachinePosition, int queuedOrders) {
+        MachineReference machine = this.linkedMachines.get(linkedMachinePosition);
+        if (machine != null && machine.queuedOrders != queuedOrders) {
+            machine.queuedOrders = queuedOrders;
+            this.linkedMachineViewersDirty = true;
+        }
+    }
+
     @Override
     public void removeDepositOrderSpirit(GlobalBlockPos linkedMachinePosition) {
-        this.linkedMachines.remove(linkedMachinePosition);
+        if (this.linkedMachines.remove(linkedMachinePosition) != null)
+            this.linkedMachineViewersDirty = true;
         this.depositOrderSpirits.remove(linkedMachinePosition);
     }
 
@@ -282,12 +421,8 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
         if (this.isBlacklisted(stack))
             return stack.getCount();
 
-        ItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
-        if (ItemHandlerHelper.insertItem(handler, stack, true).getCount() < stack.getCount()) {
-            stack = ItemHandlerHelper.insertItem(handler, stack, simulate);
-        }
-
-        return stack.getCount();
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        return handler.insertItem(stack, simulate).getCount();
     }
 
     @Override
@@ -295,53 +430,24 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
         if (requestedSize <= 0 || comparator == null) {
             return ItemStack.EMPTY;
         }
-        ItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
-        ItemStack firstMatchedStack = ItemStack.EMPTY;
-        int remaining = requestedSize;
-        for (int slot = 0; slot < handler.getSlots(); slot++) {
-
-            //first we force a simulation
-            ItemStack stack = handler.extractItem(slot, remaining, true);
-            if (stack.isEmpty()) {
-                continue;
-            }
-
-            //if we have not found anything yet we can just store the result or move on
-            if (firstMatchedStack.isEmpty()) {
-
-                if (!comparator.test(stack)) {
-                    //this slot does not match so we move on
-                    continue;
-                }
-                //just take entire stack -> we're in sim mode
-                firstMatchedStack = stack.copy();
-            }
-            else {
-                //we already found something, so we need to make sure the stacks match up, if not we move on.
-                if (!ItemHandlerHelper.canItemStacksStack(firstMatchedStack, stack)) {
-                    continue;
-                }
-            }
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        ItemStackKey matchedKey = this.findMatchingKey(handler, comparator);
+        if (matchedKey == null) {
+            return ItemStack.EMPTY;
+        }
 
+        ItemStack firstMatchedStack = handler.getFirstStack(matchedKey).copy();
+        //iterate backwards, so slots removed by an oversized handler do not shift the slots we still need to visit.
+        int remaining = requestedSize;
+        List<Integer> matchingSlots = new ArrayList<>(handler.getSlots(matchedKey));
+        for (int i = matchingSlots.size() - 1; i >= 0 && remaining > 0; i--) {
             //get how many we have to extract in this round, cannot be more than we need nor more than is in this slot.
-            int toExtract = Math.min(stack.getCount(), remaining);
-
-            //now we can leave simulation up to the caller
-            ItemStack extractedStack = handler.extractItem(slot, toExtract, simulate);
+            ItemStack extractedStack = handler.extractItem(matchingSlots.get(i), remaining, simulate);
             remaining -= extractedStack.getCount();
-
-            //if we got all we need we can exit here.
-            if (remaining <= 0) {
-                break;
-            }
         }
 
         //set the exact output count and return.
-        int extractCount = requestedSize - remaining;
-        if (!firstMatchedStack.isEmpty() && extractCount > 0) {
-            firstMatchedStack.setCount(extractCount);
-        }
-
+        firstMatchedStack.setCount(requestedSize - remaining);
         return firstMatchedStack;
     }
 
@@ -350,19 +456,33 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
             return 0;
         }
         int totalCount = 0;
-        ItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
-        int size = handler.getSlots();
-        for (int slot = 0; slot < size; slot++) {
-            ItemStack stack = handler.getStackInSlot(slot);
-            if (comparator.matches(stack))
-                totalCount += stack.getCount();
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        for (ItemStackKey key : this.getCandidateKeys(handler, comparator)) {
+            if (comparator.matches(handler.getFirstStack(key)))
+                totalCount += handler.getCount(key);
         }
         return totalCount;
     }
 
+    @Override
+    public List<ItemStack> getAvailableStacks(Predicate<ItemStack> comparator) {
+        if (comparator == null) {
+            return Collections.emptyList();
+        }
+        List<ItemStack> stacks = new ArrayList<>();
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        for (ItemStackKey key : this.getCandidateKeys(handler, comparator)) {
+            ItemStack stack = handler.getFirstStack(key);
+            if (comparator.test(stack))
+                stacks.add(ItemHandlerHelper.copyStackWithSize(stack, handler.getCount(key)));
+        }
+        return stacks;
+    }
+
     @Override
     public void onContentsChanged() {
         this.cachedMessageUpdateStacks = null;
+        this.stackViewersDirty = true;
         this.markDirty();
     }
 
@@ -388,6 +508,7 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
                 this.stabilizersInitialized = true;
                 this.updateStabilizers();
             }
+            this.updateStackViewers();
         }
     }
 
@@ -531,18 +652,126 @@ public class StorageControllerTileEntity extends NetworkedTileEntity implements
     }
 
 
-    protected void mergeIntoList(List<ItemStack> list, ItemStack stackToAdd) {
-        boolean merged = false;
-        for (ItemStack stack : list) {
-            if (ItemHandlerHelper.canItemStacksStack(stackToAdd, stack)) {
-                stack.setCount(stack.getCount() + stackToAdd.getCount());
-                merged = true;
-                break;
+    /**
+     * Pushes changed stacks and linked machines to all players viewing this storage controller.
+     * Called once per tick, so any number of changes within a tick result in at most one update per viewer.
+     * Viewers register by requesting stacks, see {@link #setStackRevision(UUID, int)}.
+     */
+    protected void updateStackViewers() {
+        if (!this.stackViewersDirty && !this.linkedMachineViewersDirty)
+            return;
+
+        boolean stacksChanged = this.stackViewersDirty;
+        boolean linkedMachinesChanged = this.linkedMachineViewersDirty;
+        this.stackViewersDirty = false;
+        this.linkedMachineViewersDirty = false;
+        if (this.stackViewerRevisions.isEmpty() && this.stackViewerQueries.isEmpty())
+            return;
+
+        if (stacksChanged)
+            this.updateStackRevision();
+
+        MessageUpdateLinkedMachines messageUpdateLinkedMachines = null;
+        Set<UUID> viewers = new HashSet<>(this.stackViewerRevisions.keySet());
+        viewers.addAll(this.stackViewerQueries.keySet());
+        for (UUID viewer : viewers) {
+            ServerPlayerEntity player = this.world.getServer().getPlayerList().getPlayerByUUID(viewer);
+            if (!this.isViewedBy(player)) {
+                this.removeStackViewer(viewer);
+                continue;
+            }
+
+            if (stacksChanged) {
+                StackQuery query = this.stackViewerQueries.get(viewer);
+                if (query != null)
+                    OccultismPackets.sendTo(player, this.getMessageUpdateStackPage(query));
+                //viewers that already received this revision, e.g. because they caused the change, can be skipped.
+                else if (this.stackViewerRevisions.get(viewer) != this.stackRevision)
+                    OccultismPackets.sendTo(player, this.getMessageUpdateStacks(viewer));
+            }
+
+            if (linkedMachinesChanged) {
+                if (messageUpdateLinkedMachines == null)
+                    messageUpdateLinkedMachines = new MessageUpdateLinkedMachines(this.linkedMachines);
+                OccultismPackets.sendTo(player, messageUpdateLinkedMachines);
+            }
+        }
+    }
+
+    /**
+     * @param player the player to check.
+     * @return true if the player has a container open that shows this storage controller.
+     */
+    protected boolean isViewedBy(ServerPlayerEntity player) {
+        return player != null && player.openContainer instanceof IStorageControllerContainer &&
+               ((IStorageControllerContainer) player.openContainer).getStorageController() == this;
+    }
+
+    /**
+     * Moves the changes tracked by the item handler into a new stack revision.
+     */
+    protected void updateStackRevision() {
+        StorageControllerItemStackHandler handler = this.itemStackHandler.orElseThrow(ItemHandlerMissingException::new);
+        if (handler.isIndexRebuilt()) {
+            //individual changes are unknown, so all viewers need a full snapshot.
+            this.stackRevision++;
+            this.trackedSinceRevision = this.stackRevision;
+            this.stackChangeRevisions.clear();
+            this.cachedMessageUpdateStacks = null;
+            this.stackQueryIndex.invalidate();
+        }
+        else if (!handler.getChangedKeys().isEmpty()) {
+            this.stackRevision++;
+            this.stackQueryIndex.update(handler, handler.getChangedKeys());
+            for (ItemStackKey key : handler.getChangedKeys()) {
+                //re-insert to move the key to the end of the change order
+                this.stackChangeRevisions.remove(key);
+                this.stackChangeRevisions.put(key, this.stackRevision);
+            }
+
+            //forget the oldest changes, viewers that have not seen them will get a full snapshot.
+            Iterator<Map.Entry<ItemStackKey, Integer>> iterator = this.stackChangeRevisions.entrySet().iterator();
+            while (this.stackChangeRevisions.size() > MAX_STACK_CHANGES) {
+                this.trackedSinceRevision = Math.max(this.trackedSinceRevision, iterator.next().getValue());
+                iterator.remove();
+            }
+            this.cachedMessageUpdateStacks = null;
+        }
+        handler.clearChanges();
+    }
+
+    /**
+     * Gets the stored keys that can possibly match the given comparator.
+     * Item stack comparators only need to look at keys of their item, everything else has to check all keys.
+     *
+     * @param handler    the handler to get the keys from.
+     * @param comparator the comparator to get keys for.
+     * @return the candidate keys.
+     */
+    protected Collection<ItemStackKey> getCandidateKeys(StorageControllerItemStackHandler handler,
+                                                        Predicate<ItemStack> comparator) {
+        if (comparator instanceof ItemStackComparator) {
+            return handler.getKeys(((ItemStackComparator) comparator).getFilterStack().getItem());
+        }
+        //simple ingredients only match by item, so only the keys of their items can match.
+        if (comparator instanceof Ingredient && ((Ingredient) comparator).isSimple()) {
+            Set<ItemStackKey> keys = new LinkedHashSet<>();
+            for (ItemStack stack : ((Ingredient) comparator).getMatchingStacks()) {
+                keys.addAll(handler.getKeys(stack.getItem()));
             }
+            return keys;
         }
-        if (!merged) {
-            list.add(stackToAdd);
+        return handler.getKeys();
+    }
+
+    @Nullable
+    protected ItemStackKey findMatchingKey(StorageControllerItemStackHandler handler,
+                                           Predicate<ItemStack> comparator) {
+        for (ItemStackKey key : this.getCandidateKeys(handler, comparator)) {
+            if (comparator.test(handler.getFirstStack(key)))
+                return key;
         }
+        return null;
     }
 
     protected void validateLinkedMachines() {
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.tile;
+
+import com.github.klikli_dev.occultism.Occultism;
+import com.github.klikli_dev.occultism.api.common.data.GlobalBlockPos;
+import com.github.klikli_dev.occultism.api.common.tile.IStorageControllerProxy;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.*;
+
+/**
+ * Server side registry of the loaded storage controller proxies linked to each storage controller.
+ * Proxies register when they are loaded or linked and deregister when they are removed or unloaded, so spirits can
+ * find the closest proxy of their storage controller without scanning their work area.
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class StorageProxyRegistry {
+
+    //region Fields
+    protected static final Map<GlobalBlockPos, Set<TileEntity>> PROXIES = new HashMap<>();
+    //endregion Fields
+
+    //region Static Methods
+
+    /**
+     * Registers the given proxy for the storage controller it is currently linked to.
+     *
+     * @param proxy the proxy tile entity, must implement {@link IStorageControllerProxy}.
+     */
+    public static void add(TileEntity proxy) {
+        World world = proxy.getWorld();
+        GlobalBlockPos storageControllerPosition =
+                ((IStorageControllerProxy) proxy).getLinkedStorageControllerPosition();
+        if (world == null || world.isRemote || storageControllerPosition == null)
+            return;
+        PROXIES.computeIfAbsent(storageControllerPosition, k -> new HashSet<>()).add(proxy);
+    }
+
+    /**
+     * Removes the given proxy from the storage controller it is currently linked to.
+     *
+     * @param proxy the proxy tile entity, must implement {@link IStorageControllerProxy}.
+     */
+    public static void remove(TileEntity proxy) {
+        World world = proxy.getWorld();
+        GlobalBlockPos storageControllerPosition =
+                ((IStorageControllerProxy) proxy).getLinkedStorageControllerPosition();
+        if (world == null || world.isRemote || storageControllerPosition == null)
+            return;
+        Set<TileEntity> proxies = PROXIES.get(storageControllerPosition);
+        if (proxies != null && proxies.remove(proxy) && proxies.isEmpty())
+            PROXIES.remove(storageControllerPosition);
+    }
+
+    /**
+     * Finds the closest loaded proxy of the given storage controller within the given area.
+     * The storage controller itself counts as a proxy.
+     *
+     * @param world                     the world to search in.
+     * @param storageControllerPosition the position of the storage controller.
+     * @param min                       the min corner of the search area.
+     * @param max                       the max corner of the search area.
+     * @param sorter                    the comparator to determine the closest position.
+     * @return the closest proxy tile entity, or null if none was found.
+     */
+    public static TileEntity getClosest(World world, GlobalBlockPos storageControllerPosition, BlockPos min,
+                                        BlockPos max, Comparator<BlockPos> sorter) {
+        if (storageControllerPosition == null)
+            return null;
+
+        TileEntity closest = null;
+        if (storageControllerPosition.getDimensionKey().equals(world.getDimensionKey()) &&
+            isInArea(storageControllerPosition.getPos(), min, max) &&
+            world.isBlockLoaded(storageControllerPosition.getPos())) {
+            TileEntity tileEntity = world.getTileEntity(storageControllerPosition.getPos());
+            if (tileEntity instanceof IStorageControllerProxy)
+                closest = tileEntity;
+        }
+
+        Set<TileEntity> proxies = PROXIES.get(storageControllerPosition);
+        if (proxies == null)
+            return closest;
+
+        for (TileEntity proxy : proxies) {
+            if (proxy.isRemoved() || proxy.getWorld() != world || !isInArea(proxy.getPos(), min, max))
+                continue;
+            if (closest == null || sorter.compare(proxy.getPos(), closest.getPos()) < 0)
+                closest = proxy;
+        }
+        return closest;
+    }
+
+    protected static boolean isInArea(BlockPos pos, BlockPos min, BlockPos max) {
+        return pos.getX() >= min.getX() && pos.getX() <= max.getX() &&
+               pos.getY() >= min.getY() && pos.getY() <= max.getY() &&
+               pos.getZ() >= min.getZ() && pos.getZ() <= max.getZ();
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        //proxies deregister themselves when their chunk unloads, this just makes sure nothing of the world survives.
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote()) {
+            Iterator<Set<TileEntity>> iterator = PROXIES.values().iterator();
+            while (iterator.hasNext()) {
+                Set<TileEntity> proxies = iterator.next();
+                proxies.removeIf(proxy -> proxy.getWorld() == event.getWorld());
+                if (proxies.isEmpty())
+                    iterator.remove();
+            }
+        }
+    }
+    //endregion Static Methods
+}
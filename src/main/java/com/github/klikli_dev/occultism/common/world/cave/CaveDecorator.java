@@ -26,6 +26,7 @@ import com.github.klikli_dev.occultism.registry.OccultismTags;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockReader;
 import net.minecraft.world.ISeedReader;
 import net.minecraft.world.gen.ChunkGenerator;
 
@@ -36,6 +37,11 @@ public abstract class CaveDecorator implements ICaveDecorator {
     public BlockState floorState;
     public BlockState ceilingState;
     public BlockState wallState;
+    /**
+     * True if a subclass overrides one of the {@link ISeedReader} classification hooks, which can only be called
+     * with the world, so spheres are filled position by position.
+     */
+    protected final boolean overridesSeedReaderHooks;
     //endregion Fields
 
     //region Initialization
@@ -44,9 +50,29 @@ public abstract class CaveDecorator implements ICaveDecorator {
         this.floorState = floorState;
         this.ceilingState = ceilingState;
         this.wallState = wallState;
+        this.overridesSeedReaderHooks = overridesSeedReaderHooks(this.getClass());
     }
     //endregion Initialization
 
+    //region Static Methods
+    protected static boolean overridesSeedReaderHooks(Class<?> type) {
+        try {
+            return type.getMethod("isFloor", ISeedReader.class, BlockPos.class, BlockState.class)
+                           .getDeclaringClass() != CaveDecorator.class ||
+                   type.getMethod("isCeiling", ISeedReader.class, BlockPos.class, BlockState.class)
+                           .getDeclaringClass() != CaveDecorator.class ||
+                   type.getMethod("isWall", ISeedReader.class, BlockPos.class, BlockState.class)
+                           .getDeclaringClass() != CaveDecorator.class ||
+                   type.getMethod("getBorderDirection", ISeedReader.class, BlockPos.class)
+                           .getDeclaringClass() != CaveDecorator.class ||
+                   type.getMethod("isBorder", ISeedReader.class, BlockPos.class)
+                           .getDeclaringClass() != CaveDecorator.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+    //endregion Static Methods
+
     //region Overrides
     @Override
     public void finalPass(ISeedReader seedReader, ChunkGenerator generator, Random rand,
@@ -81,9 +107,74 @@ public abstract class CaveDecorator implements ICaveDecorator {
             this.fillInside(seedReader, generator, rand, pos, state);
         }
     }
+
+    /**
+     * Batched version of {@link #fill(ISeedReader, ChunkGenerator, Random, BlockPos, CaveDecoratordata)}.
+     * Reads the sphere volume and its neighbours into a {@link CaveVolume} once and classifies all positions from it,
+     * using the same hooks as filling the positions one by one. Positions changed by the fill hooks are read back into
+     * the snapshot, so later positions see them; changes a fill hook makes to other positions are not seen.
+     * Decorators overriding the {@link ISeedReader} classification hooks are filled position by position instead.
+     */
+    @Override
+    public void fillSphere(ISeedReader seedReader, ChunkGenerator generator, Random rand, BlockPos center,
+                           float radiusSquared, BlockPos min, BlockPos max, CaveDecoratordata data) {
+        if (this.overridesSeedReaderHooks) {
+            ICaveDecorator.super.fillSphere(seedReader, generator, rand, center, radiusSquared, min, max, data);
+            return;
+        }
+        if (min.getX() > max.getX() || min.getY() > max.getY() || min.getZ() > max.getZ())
+            return;
+
+        CaveVolume volume = new CaveVolume(seedReader, min, max);
+        BlockPos.getAllInBox(min, max).forEach(blockPos -> {
+            if (blockPos.distanceSq(center) > (double) radiusSquared)
+                return;
+
+            BlockState state = volume.getBlockState(blockPos);
+            if (state.getBlockHardness(seedReader, blockPos) == -1 || volume.canBlockSeeSky(blockPos))
+                return;
+
+            BlockPos pos = blockPos.toImmutable();
+            this.fill(seedReader, volume, generator, rand, pos, state, data);
+            volume.refresh(pos);
+        });
+    }
     //endregion Overrides
 
     //region Methods
+
+    /**
+     * Classifies the given position by the {@link IBlockReader} hooks and fills it as floor, ceiling, wall or inside
+     * block.
+     *
+     * @param seedReader the world to fill in.
+     * @param blocks     the blocks to classify by, usually a snapshot of the world.
+     * @param generator  the chunk generator.
+     * @param rand       the random to use.
+     * @param pos        the position to fill.
+     * @param state      the current state at the position.
+     * @param data       the decorator data to collect the filled positions in.
+     */
+    protected void fill(ISeedReader seedReader, IBlockReader blocks, ChunkGenerator generator, Random rand,
+                        BlockPos pos, BlockState state, CaveDecoratordata data) {
+        if (this.isFloor(blocks, pos, state)) {
+            data.floorBlocks.add(pos);
+            this.fillFloor(seedReader, generator, rand, pos, state);
+        }
+        else if (this.isCeiling(blocks, pos, state)) {
+            data.ceilingBlocks.add(pos);
+            this.fillCeiling(seedReader, generator, rand, pos, state);
+        }
+        else if (this.isWall(blocks, pos, state)) {
+            data.wallBlocks.put(pos, this.getBorderDirection(blocks, pos));
+            this.fillWall(seedReader, generator, rand, pos, state);
+        }
+        else if (this.isInside(state)) {
+            data.insideBlocks.add(pos);
+            this.fillInside(seedReader, generator, rand, pos, state);
+        }
+    }
+
     public void fillFloor(ISeedReader seedReader, ChunkGenerator generator, Random rand,
                           BlockPos pos, BlockState state) {
         if (this.floorState != null) {
@@ -125,35 +216,53 @@ public abstract class CaveDecorator implements ICaveDecorator {
     }
 
     public boolean isFloor(ISeedReader seedReader, BlockPos pos, BlockState state) {
-        if (!state.isOpaqueCube(seedReader, pos))
+        return this.isFloor((IBlockReader) seedReader, pos, state);
+    }
+
+    public boolean isFloor(IBlockReader blocks, BlockPos pos, BlockState state) {
+        if (!state.isOpaqueCube(blocks, pos))
             return false;
 
         BlockPos upPos = pos.up();
-        return seedReader.isAirBlock(upPos) || seedReader.getBlockState(upPos).getMaterial().isReplaceable();
+        BlockState upState = blocks.getBlockState(upPos);
+        return upState.isAir(blocks, upPos) || upState.getMaterial().isReplaceable();
     }
 
     public boolean isCeiling(ISeedReader seedReader, BlockPos pos, BlockState state) {
-        if (!state.isOpaqueCube(seedReader, pos))
+        return this.isCeiling((IBlockReader) seedReader, pos, state);
+    }
+
+    public boolean isCeiling(IBlockReader blocks, BlockPos pos, BlockState state) {
+        if (!state.isOpaqueCube(blocks, pos))
             return false;
 
         BlockPos downPos = pos.down();
-        return seedReader.isAirBlock(downPos); // || world.getBlockState(downPos).getBlock().isReplaceable(world, downPos);
+        return blocks.getBlockState(downPos).isAir(blocks, downPos); // || world.getBlockState(downPos).getBlock().isReplaceable(world, downPos);
     }
 
     public boolean isWall(ISeedReader seedReader, BlockPos pos, BlockState state) {
-        if (!state.isOpaqueCube(seedReader, pos) || !this.isStone(state))
+        return this.isWall((IBlockReader) seedReader, pos, state);
+    }
+
+    public boolean isWall(IBlockReader blocks, BlockPos pos, BlockState state) {
+        if (!state.isOpaqueCube(blocks, pos) || !this.isStone(state))
             return false;
 
-        return this.isBorder(seedReader, pos);
+        //go through the world overload when classifying in the world, so overrides of either one apply
+        return blocks instanceof ISeedReader ? this.isBorder((ISeedReader) blocks, pos) : this.isBorder(blocks, pos);
     }
 
     public Direction getBorderDirection(ISeedReader seedReader, BlockPos pos) {
-        BlockState state = seedReader.getBlockState(pos);
+        return this.getBorderDirection((IBlockReader) seedReader, pos);
+    }
+
+    public Direction getBorderDirection(IBlockReader blocks, BlockPos pos) {
+        BlockState state = blocks.getBlockState(pos);
         for (Direction facing : Direction.Plane.HORIZONTAL) {
             BlockPos offsetPos = pos.offset(facing);
-            BlockState stateAt = seedReader.getBlockState(offsetPos);
+            BlockState stateAt = blocks.getBlockState(offsetPos);
 
-            if (state != stateAt && seedReader.isAirBlock(offsetPos) || stateAt.getMaterial().isReplaceable())
+            if (state != stateAt && stateAt.isAir(blocks, offsetPos) || stateAt.getMaterial().isReplaceable())
                 return facing;
         }
 
@@ -161,7 +270,12 @@ public abstract class CaveDecorator implements ICaveDecorator {
     }
 
     public boolean isBorder(ISeedReader seedReader, BlockPos pos) {
-        return this.getBorderDirection(seedReader, pos) != null;
+        return this.isBorder((IBlockReader) seedReader, pos);
+    }
+
+    public boolean isBorder(IBlockReader blocks, BlockPos pos) {
+        return blocks instanceof ISeedReader ? this.getBorderDirection((ISeedReader) blocks, pos) != null :
+               this.getBorderDirection(blocks, pos) != null;
     }
 
     public boolean isInside(BlockState state) {
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.world.cave;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockReader;
+import net.minecraft.world.ISeedReader;
+import net.minecraft.world.chunk.IChunk;
+
+import javax.annotation.Nullable;
+
+/**
+ * A snapshot of the block states in an area, including a one block border around it, read chunk by chunk.
+ * Positions outside the area are read from the world. The snapshot does not follow changes to the world, callers
+ * changing blocks within the area need to {@link #refresh(BlockPos)} them.
+ */
+public class CaveVolume implements IBlockReader {
+    //region Fields
+    protected static final byte SKY_UNKNOWN = 0;
+    protected static final byte SKY_VISIBLE = 1;
+    protected static final byte SKY_BLOCKED = 2;
+
+    protected final ISeedReader reader;
+    protected final int minX;
+    protected final int minY;
+    protected final int minZ;
+    protected final int sizeX;
+    protected final int sizeY;
+    protected final int sizeZ;
+    protected final BlockState[] states;
+    /**
+     * Per column, whether the sky is visible from sea level down to the top of the snapshot.
+     */
+    protected final byte[] columnSky;
+    //endregion Fields
+
+    //region Initialization
+
+    /**
+     * @param reader the world.
+     * @param min    the min corner of the area.
+     * @param max    the max corner of the area.
+     */
+    public CaveVolume(ISeedReader reader, BlockPos min, BlockPos max) {
+        this.reader = reader;
+        this.minX = min.getX() - 1;
+        this.minY = min.getY() - 1;
+        this.minZ = min.getZ() - 1;
+        this.sizeX = max.getX() - min.getX() + 3;
+        this.sizeY = max.getY() - min.getY() + 3;
+        this.sizeZ = max.getZ() - min.getZ() + 3;
+        this.states = new BlockState[this.sizeX * this.sizeY * this.sizeZ];
+        this.columnSky = new byte[this.sizeX * this.sizeZ];
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int z = 0; z < this.sizeZ; z++) {
+            for (int x = 0; x < this.sizeX; x++) {
+                int worldX = this.minX + x;
+                int worldZ = this.minZ + z;
+                IChunk chunk = reader.getChunk(worldX >> 4, worldZ >> 4);
+                for (int y = 0; y < this.sizeY; y++) {
+                    pos.setPos(worldX, this.minY + y, worldZ);
+                    this.states[this.getIndex(worldX, this.minY + y, worldZ)] = chunk.getBlockState(pos);
+                }
+            }
+        }
+    }
+    //endregion Initialization
+
+    //region Overrides
+    @Nullable
+    @Override
+    public TileEntity getTileEntity(BlockPos pos) {
+        return this.reader.getTileEntity(pos);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return this.contains(pos.getX(), pos.getY(), pos.getZ()) ?
+               this.states[this.getIndex(pos.getX(), pos.getY(), pos.getZ())] : this.reader.getBlockState(pos);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return this.getBlockState(pos).getFluidState();
+    }
+    //endregion Overrides
+
+    //region Methods
+
+    /**
+     * Reads the given position from the world again, after it was changed.
+     *
+     * @param pos the position, must be within the area or its border.
+     */
+    public void refresh(BlockPos pos) {
+        this.states[this.getIndex(pos.getX(), pos.getY(), pos.getZ())] = this.reader.getBlockState(pos);
+    }
+
+    /**
+     * Same as {@link ISeedReader#canBlockSeeSky(BlockPos)}, but reads the part of the column within the area from the
+     * snapshot and checks the part above it only once per column.
+     *
+     * @param pos the position, must be within the area.
+     * @return true if the position can see the sky.
+     */
+    public boolean canBlockSeeSky(BlockPos pos) {
+        int seaLevel = this.reader.getSeaLevel();
+        if (pos.getY() >= seaLevel)
+            return this.reader.canSeeSky(pos);
+
+        int column = (pos.getZ() - this.minZ) * this.sizeX + (pos.getX() - this.minX);
+        if (this.columnSky[column] == SKY_UNKNOWN)
+            this.columnSky[column] = this.canSeeSkyAboveArea(pos.getX(), pos.getZ(), seaLevel) ?
+                                     SKY_VISIBLE : SKY_BLOCKED;
+        if (this.columnSky[column] == SKY_BLOCKED)
+            return false;
+
+        BlockPos.Mutable above = new BlockPos.Mutable();
+        int top = Math.min(seaLevel, this.minY + this.sizeY);
+        for (int y = top - 1; y > pos.getY(); y--) {
+            above.setPos(pos.getX(), y, pos.getZ());
+            if (this.blocksSky(this.getBlockState(above), above))
+                return false;
+        }
+        return true;
+    }
+
+    protected boolean canSeeSkyAboveArea(int x, int z, int seaLevel) {
+        BlockPos.Mutable pos = new BlockPos.Mutable(x, seaLevel, z);
+        if (!this.reader.canSeeSky(pos))
+            return false;
+        for (int y = seaLevel - 1; y >= this.minY + this.sizeY; y--) {
+            pos.setPos(x, y, z);
+            if (this.blocksSky(this.reader.getBlockState(pos), pos))
+                return false;
+        }
+        return true;
+    }
+
+    protected boolean blocksSky(BlockState state, BlockPos pos) {
+        return state.getOpacity(this.reader, pos) > 0 && !state.getMaterial().isLiquid();
+    }
+
+    protected boolean contains(int x, int y, int z) {
+        return x >= this.minX && x < this.minX + this.sizeX && y >= this.minY && y < this.minY + this.sizeY &&
+               z >= this.minZ && z < this.minZ + this.sizeZ;
+    }
+
+    protected int getIndex(int x, int y, int z) {
+        return ((z - this.minZ) * this.sizeY + (y - this.minY)) * this.sizeX + (x - this.minX);
+    }
+    //endregion Methods
+}
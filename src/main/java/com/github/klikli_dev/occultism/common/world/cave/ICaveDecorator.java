@@ -35,4 +35,26 @@ public interface ICaveDecorator {
 
     void fill(ISeedReader seedReader, ChunkGenerator generator, Random rand,
               BlockPos pos, CaveDecoratordata data);
+
+    /**
+     * Fills all positions within the given sphere, clamped to the given bounds.
+     * Positions are visited in the same order as {@link BlockPos#getAllInBox(BlockPos, BlockPos)}.
+     *
+     * @param seedReader    the world.
+     * @param generator     the chunk generator.
+     * @param rand          the random to use.
+     * @param center        the center of the sphere.
+     * @param radiusSquared the squared radius of the sphere.
+     * @param min           the min corner of the area to fill.
+     * @param max           the max corner of the area to fill.
+     * @param data          the decorator data to collect the filled positions in.
+     */
+    default void fillSphere(ISeedReader seedReader, ChunkGenerator generator, Random rand, BlockPos center,
+                            float radiusSquared, BlockPos min, BlockPos max, CaveDecoratordata data) {
+        BlockPos.getAllInBox(min, max).forEach(blockPos -> {
+            if (blockPos.distanceSq(center) <= (double) radiusSquared) {
+                this.fill(seedReader, generator, rand, blockPos.toImmutable(), data);
+            }
+        });
+    }
 }
@@ -22,12 +22,14 @@
 
 package com.github.klikli_dev.occultism.common.world.cave;
 
+import com.github.klikli_dev.occultism.Occultism;
 import com.github.klikli_dev.occultism.common.world.multichunk.IMultiChunkSubFeature;
 import com.github.klikli_dev.occultism.common.world.multichunk.MultiChunkFeatureConfig;
 import com.github.klikli_dev.occultism.util.Math3DUtil;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.util.Direction;
+import net.minecraft.util.RegistryKey;
 import net.minecraft.util.SharedSeedRandom;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
@@ -35,14 +37,29 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.ISeedReader;
 import net.minecraft.world.IWorld;
+import net.minecraft.village.PointOfInterestType;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.IChunk;
 import net.minecraft.world.gen.ChunkGenerator;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
 
 import java.util.*;
 
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class SphericalCaveSubFeature implements IMultiChunkSubFeature {
 
     //region Fields
-    public static Set<BlockPos> sphericalCaves = new HashSet<>();
+    /**
+     * The maximum amount of recently generated caves to keep track of per world.
+     */
+    public static final int MAX_TRACKED_CAVES = 256;
+    protected static final Map<RegistryKey<World>, Set<BlockPos>> SPHERICAL_CAVES = new HashMap<>();
     protected ICaveDecorator caveDecorator;
     protected int radius;
     protected int maxRandomRadiusOffset;
@@ -78,6 +95,42 @@ public class SphericalCaveSubFeature implements IMultiChunkSubFeature {
     }
     //endregion Initialization
 
+    //region Static Methods
+
+    /**
+     * @param world the world.
+     * @return the root positions of the most recently generated spherical caves in the given world.
+     */
+    public static List<BlockPos> getSphericalCaves(World world) {
+        synchronized (SPHERICAL_CAVES) {
+            Set<BlockPos> caves = SPHERICAL_CAVES.get(world.getDimensionKey());
+            return caves != null ? new ArrayList<>(caves) : Collections.emptyList();
+        }
+    }
+
+    protected static void addSphericalCave(RegistryKey<World> dimension, BlockPos rootPosition) {
+        //called from world gen worker threads
+        synchronized (SPHERICAL_CAVES) {
+            SPHERICAL_CAVES.computeIfAbsent(dimension, k -> Collections.newSetFromMap(
+                    new LinkedHashMap<BlockPos, Boolean>() {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<BlockPos, Boolean> eldest) {
+                            return this.size() > MAX_TRACKED_CAVES;
+                        }
+                    })).add(rootPosition);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote()) {
+            synchronized (SPHERICAL_CAVES) {
+                SPHERICAL_CAVES.remove(((World) event.getWorld()).getDimensionKey());
+            }
+        }
+    }
+    //endregion Static Methods
+
     //region Overrides
     @Override
     public boolean generate(ISeedReader reader, ChunkGenerator generator, Random rand, BlockPos rootPosition,
@@ -87,7 +140,7 @@ public class SphericalCaveSubFeature implements IMultiChunkSubFeature {
             return false;
 
         //Store a list of spherical caves for easy access during development, or future command access.
-        sphericalCaves.add(rootPosition);
+        addSphericalCave(reader.getWorld().getDimensionKey(), rootPosition);
 
         ChunkPos rootChunk = new ChunkPos(rootPosition);
         //Seed with root chunk position
@@ -124,15 +177,165 @@ public class SphericalCaveSubFeature implements IMultiChunkSubFeature {
         float f = (float) (j + k + l) * 0.333F + 0.5F;
         BlockPos min = Math3DUtil.clamp(center.add(-j, -k, -l), bounds);
         BlockPos max = Math3DUtil.clamp(center.add(j, k, l), bounds);
+        int sizeX = max.getX() - min.getX() + 1;
+        int sizeY = max.getY() - min.getY() + 1;
+        int sizeZ = max.getZ() - min.getZ() + 1;
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0)
+            return;
+
+        //first mark the positions to hollow out, in the same order as BlockPos.getAllInBox,
+        //so the random is consumed exactly as before and generated caves do not change.
+        BitSet hollow = new BitSet(sizeX * sizeY * sizeZ);
+        int index = 0;
+        for (int z = min.getZ(); z <= max.getZ(); z++) {
+            for (int y = min.getY(); y <= max.getY(); y++) {
+                for (int x = min.getX(); x <= max.getX(); x++) {
+                    double dx = x + 0.5 - center.getX();
+                    double dy = y + 0.5 - center.getY();
+                    double dz = z + 0.5 - center.getZ();
+                    if (dx * dx + dy * dy + dz * dz <=
+                        (double) (f * f * MathHelper.clamp(rand.nextFloat(), 0.75F, 1.0F)))
+                        hollow.set(index);
+                    index++;
+                }
+            }
+        }
+
+        //then write them chunk by chunk
+        for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+            for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+                IChunk chunk = reader.getChunk(chunkX, chunkZ);
+                BlockPos chunkMin = new BlockPos(Math.max(min.getX(), chunkX << 4), min.getY(),
+                        Math.max(min.getZ(), chunkZ << 4));
+                BlockPos chunkMax = new BlockPos(Math.min(max.getX(), (chunkX << 4) + 15), max.getY(),
+                        Math.min(max.getZ(), (chunkZ << 4) + 15));
+                if (this.canWriteSections(chunk))
+                    this.hollowOutSections(reader, (ChunkPrimer) chunk, hollow, min, max, chunkMin, chunkMax);
+                else
+                    this.hollowOutBlocks(reader, hollow, min, max, chunkMin, chunkMax);
+            }
+        }
+    }
+
+    /**
+     * Chunks that are still being generated and have not reached the features status do not track light changes, so
+     * their sections can be written directly, as long as heightmaps and points of interest are updated like
+     * {@link net.minecraft.world.gen.WorldGenRegion#setBlockState} does.
+     *
+     * @param chunk the chunk.
+     * @return true if cave air can be written straight into the sections of the chunk.
+     */
+    protected boolean canWriteSections(IChunk chunk) {
+        return chunk instanceof ChunkPrimer && !chunk.getStatus().isAtLeast(ChunkStatus.FEATURES);
+    }
+
+    /**
+     * Hollows out the marked positions within the given part of a chunk, section by section.
+     *
+     * @param reader   the world.
+     * @param primer   the chunk.
+     * @param hollow   the positions to hollow out, indexed within min and max.
+     * @param min      the min corner of the hollowed area.
+     * @param max      the max corner of the hollowed area.
+     * @param chunkMin the min corner of the part of the area in this chunk.
+     * @param chunkMax the max corner of the part of the area in this chunk.
+     */
+    protected void hollowOutSections(ISeedReader reader, ChunkPrimer primer, BitSet hollow, BlockPos min,
+                                     BlockPos max, BlockPos chunkMin, BlockPos chunkMax) {
+        BlockState caveAir = Blocks.CAVE_AIR.getDefaultState();
+        Heightmap[] heightmaps = this.getHeightmapsToUpdate(primer);
+        int sizeX = max.getX() - min.getX() + 1;
+        int sizeY = max.getY() - min.getY() + 1;
+        //positions outside of the sections are ignored by the chunk
+        int minSection = Math.max(chunkMin.getY(), 0) >> 4;
+        int maxSection = Math.min(chunkMax.getY(), primer.getSections().length * 16 - 1) >> 4;
+        for (int sectionY = minSection; sectionY <= maxSection; sectionY++) {
+            ChunkSection section = primer.getSection(sectionY);
+            int minY = Math.max(chunkMin.getY(), sectionY << 4);
+            int maxY = Math.min(chunkMax.getY(), (sectionY << 4) + 15);
+            section.lock();
+            try {
+                for (int z = chunkMin.getZ(); z <= chunkMax.getZ(); z++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        for (int x = chunkMin.getX(); x <= chunkMax.getX(); x++) {
+                            int index = ((z - min.getZ()) * sizeY + (y - min.getY())) * sizeX + (x - min.getX());
+                            if (!hollow.get(index))
+                                continue;
+
+                            BlockState currentState = section.getBlockState(x & 15, y & 15, z & 15);
+                            if (currentState.hasTileEntity() || currentState.getBlock() == Blocks.BEDROCK ||
+                                currentState == caveAir)
+                                continue;
+
+                            section.setBlockState(x & 15, y & 15, z & 15, caveAir, false);
+                            for (Heightmap heightmap : heightmaps) {
+                                heightmap.update(x & 15, y, z & 15, caveAir);
+                            }
+                            if (PointOfInterestType.forState(currentState).isPresent())
+                                reader.getWorld().onBlockStateChange(new BlockPos(x, y, z), currentState, caveAir);
+                        }
+                    }
+                }
+            } finally {
+                section.unlock();
+            }
+        }
+    }
 
-        BlockPos.getAllInBox(min, max).forEach(blockPos -> {
-            if (blockPos.distanceSq(center) <= (double) (f * f * MathHelper.clamp(rand.nextFloat(), 0.75F, 1.0F))) {
-                BlockState currentState = reader.getBlockState(blockPos);
-                if (!currentState.hasTileEntity() && currentState.getBlock() != Blocks.BEDROCK) {
-                    reader.setBlockState(blockPos, Blocks.CAVE_AIR.getDefaultState(), 2);
+    /**
+     * Hollows out the marked positions within the given part of a chunk block by block through the world.
+     *
+     * @param reader   the world.
+     * @param hollow   the positions to hollow out, indexed within min and max.
+     * @param min      the min corner of the hollowed area.
+     * @param max      the max corner of the hollowed area.
+     * @param chunkMin the min corner of the part of the area in this chunk.
+     * @param chunkMax the max corner of the part of the area in this chunk.
+     */
+    protected void hollowOutBlocks(ISeedReader reader, BitSet hollow, BlockPos min, BlockPos max,
+                                   BlockPos chunkMin, BlockPos chunkMax) {
+        BlockState caveAir = Blocks.CAVE_AIR.getDefaultState();
+        int sizeX = max.getX() - min.getX() + 1;
+        int sizeY = max.getY() - min.getY() + 1;
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int z = chunkMin.getZ(); z <= chunkMax.getZ(); z++) {
+            for (int y = chunkMin.getY(); y <= chunkMax.getY(); y++) {
+                for (int x = chunkMin.getX(); x <= chunkMax.getX(); x++) {
+                    if (!hollow.get(((z - min.getZ()) * sizeY + (y - min.getY())) * sizeX + (x - min.getX())))
+                        continue;
+
+                    pos.setPos(x, y, z);
+                    BlockState currentState = reader.getBlockState(pos);
+                    if (!currentState.hasTileEntity() && currentState.getBlock() != Blocks.BEDROCK) {
+                        reader.setBlockState(pos, caveAir, 2);
+                    }
                 }
             }
-        });
+        }
+    }
+
+    /**
+     * Gets the heightmaps the chunk updates on block changes in its current status, computing missing ones the same
+     * way {@link ChunkPrimer#setBlockState(BlockPos, BlockState, boolean)} does.
+     *
+     * @param primer the chunk.
+     * @return the heightmaps to update.
+     */
+    protected Heightmap[] getHeightmapsToUpdate(ChunkPrimer primer) {
+        EnumSet<Heightmap.Type> types = primer.getStatus().getHeightMaps();
+        EnumSet<Heightmap.Type> missing = EnumSet.copyOf(types);
+        for (Map.Entry<Heightmap.Type, Heightmap> entry : primer.getHeightmaps()) {
+            missing.remove(entry.getKey());
+        }
+        if (!missing.isEmpty())
+            Heightmap.updateChunkHeightmaps(primer, missing);
+
+        Heightmap[] heightmaps = new Heightmap[types.size()];
+        int i = 0;
+        for (Heightmap.Type type : types) {
+            heightmaps[i++] = primer.getHeightmap(type);
+        }
+        return heightmaps;
     }
 
     protected void decorateSphere(ISeedReader reader, ChunkGenerator generator, Random rand,
@@ -145,11 +348,7 @@ public class SphericalCaveSubFeature implements IMultiChunkSubFeature {
         float f = (float) (j + k + l) * 0.333F + 0.5F;
         BlockPos min = Math3DUtil.clamp(center.add(-j, -k, -l), bounds);
         BlockPos max = Math3DUtil.clamp(center.add(j, k, l), bounds);
-        BlockPos.getAllInBox(min, max).forEach(blockPos -> {
-            if (blockPos.distanceSq(center) <= (double) (f * f)) {
-                this.caveDecorator.fill(reader, generator, rand, blockPos.toImmutable(), data);
-            }
-        });
+        this.caveDecorator.fillSphere(reader, generator, rand, center, f * f, min, max, data);
 
         this.caveDecorator.finalPass(reader, generator, rand, data);
     }
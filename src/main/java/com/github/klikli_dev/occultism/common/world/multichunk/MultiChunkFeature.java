@@ -88,27 +88,16 @@ public class MultiChunkFeature extends Feature<MultiChunkFeatureConfig> {
                                               ChunkPos generatingChunk,
                                               MultiChunkFeatureConfig config) {
         ArrayList<BlockPos> result = new ArrayList<>(1);
+        //neighbouring chunks look up the same roots, so they are cached per world region.
+        RootPositionCache cache = RootPositionCache.get(reader, config);
         for (int i = -config.maxChunksToRoot; i < config.maxChunksToRoot; i++) {
             for (int j = -config.maxChunksToRoot; j < config.maxChunksToRoot; j++) {
-
-                ChunkPos currentChunk = new ChunkPos(generatingChunk.x + i, generatingChunk.z + j);
-
-                //Seed random for this chunk, this way we get the same result no matter how often this is called.
-                random.setLargeFeatureSeedWithSalt(reader.getSeed(), currentChunk.x, currentChunk.z,
-                        config.featureSeedSalt);
-
-                if (random.nextInt(config.chanceToGenerate) == 0) {
-                    //this chunk contains a root, so we generate a random
-                    result.add(currentChunk.asBlockPos().add(
-                            random.nextInt(15),
-                            Math.min(generator.getMaxBuildHeight(),
-                                    config.minGenerationHeight + random.nextInt(
-                                            Math.max(0, config.maxGenerationHeight - config.minGenerationHeight))),
-                            random.nextInt(15))
-                    );
-                }
+                BlockPos root = cache.getRoot(reader, generator, random, generatingChunk.x + i, generatingChunk.z + j);
+                if (root != null)
+                    result.add(root);
             }
         }
+        cache.markGenerated(generatingChunk.x, generatingChunk.z);
         return result;
     }
     //endregion Methods
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.common.world.multichunk;
+
+import com.github.klikli_dev.occultism.Occultism;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.SharedSeedRandom;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.ISeedReader;
+import net.minecraft.world.World;
+import net.minecraft.world.gen.ChunkGenerator;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per world cache of multi chunk feature root positions, partitioned into regions of 32x32 chunks.
+ * Roots are deterministic per chunk, so all chunks generating near the same roots share the computed results.
+ * Regions are evicted once all their chunks are generated, or when too many regions are cached.
+ * Accessed from world gen worker threads, so all access is synchronized.
+ */
+@Mod.EventBusSubscriber(modid = Occultism.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class RootPositionCache {
+
+    //region Fields
+    public static final int REGION_SHIFT = 5;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+    public static final int MAX_REGIONS = 64;
+
+    protected static final Map<RegistryKey<World>, Map<MultiChunkFeatureConfig, RootPositionCache>> CACHES =
+            new HashMap<>();
+
+    protected final MultiChunkFeatureConfig config;
+    protected final Map<Long, Region> regions = new LinkedHashMap<Long, Region>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Region> eldest) {
+            return this.size() > MAX_REGIONS;
+        }
+    };
+    //endregion Fields
+
+    //region Initialization
+    protected RootPositionCache(MultiChunkFeatureConfig config) {
+        this.config = config;
+    }
+    //endregion Initialization
+
+    //region Static Methods
+
+    /**
+     * Gets the root position cache for the given world and feature config.
+     *
+     * @param reader the world gen region.
+     * @param config the feature config.
+     * @return the cache.
+     */
+    public static RootPositionCache get(ISeedReader reader, MultiChunkFeatureConfig config) {
+        synchronized (CACHES) {
+            return CACHES.computeIfAbsent(reader.getWorld().getDimensionKey(), k -> new HashMap<>())
+                           .computeIfAbsent(config, RootPositionCache::new);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof World && !event.getWorld().isRemote()) {
+            synchronized (CACHES) {
+                CACHES.remove(((World) event.getWorld()).getDimensionKey());
+            }
+        }
+    }
+
+    protected static long getRegionKey(int chunkX, int chunkZ) {
+        return ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+
+    protected static int getIndex(int chunkX, int chunkZ) {
+        return (chunkX & (REGION_SIZE - 1)) << REGION_SHIFT | (chunkZ & (REGION_SIZE - 1));
+    }
+    //endregion Static Methods
+
+    //region Methods
+
+    /**
+     * Gets the root position of the given chunk, computing it if it is not cached.
+     *
+     * @param reader    the world gen region.
+     * @param generator the chunk generator.
+     * @param random    the random to use for computing the root.
+     * @param chunkX    the chunk x coordinate.
+     * @param chunkZ    the chunk z coordinate.
+     * @return the root position, or null if the chunk has no root.
+     */
+    public synchronized BlockPos getRoot(ISeedReader reader, ChunkGenerator generator, SharedSeedRandom random,
+                                         int chunkX, int chunkZ) {
+        Region region = this.regions.computeIfAbsent(getRegionKey(chunkX, chunkZ), k -> new Region());
+        int index = getIndex(chunkX, chunkZ);
+        if (!region.computed.get(index)) {
+            region.roots[index] = this.computeRoot(reader, generator, random, chunkX, chunkZ);
+            region.computed.set(index);
+        }
+        return region.roots[index];
+    }
+
+    /**
+     * Marks the given chunk as generated, evicting its region once all chunks in it are generated.
+     *
+     * @param chunkX the chunk x coordinate.
+     * @param chunkZ the chunk z coordinate.
+     */
+    public synchronized void markGenerated(int chunkX, int chunkZ) {
+        long key = getRegionKey(chunkX, chunkZ);
+        Region region = this.regions.get(key);
+        if (region == null)
+            return;
+        region.generated.set(getIndex(chunkX, chunkZ));
+        if (region.generated.cardinality() == REGION_SIZE * REGION_SIZE)
+            this.regions.remove(key);
+    }
+
+    protected BlockPos computeRoot(ISeedReader reader, ChunkGenerator generator, SharedSeedRandom random,
+                                   int chunkX, int chunkZ) {
+        //Seed random for this chunk, this way we get the same result no matter how often this is called.
+        random.setLargeFeatureSeedWithSalt(reader.getSeed(), chunkX, chunkZ, this.config.featureSeedSalt);
+
+        if (random.nextInt(this.config.chanceToGenerate) == 0) {
+            //this chunk contains a root, so we generate a random
+            return new ChunkPos(chunkX, chunkZ).asBlockPos().add(
+                    random.nextInt(15),
+                    Math.min(generator.getMaxBuildHeight(),
+                            this.config.minGenerationHeight + random.nextInt(
+                                    Math.max(0, this.config.maxGenerationHeight - this.config.minGenerationHeight))),
+                    random.nextInt(15));
+        }
+        return null;
+    }
+    //endregion Methods
+
+    protected static class Region {
+        //region Fields
+        protected final BlockPos[] roots = new BlockPos[REGION_SIZE * REGION_SIZE];
+        protected final BitSet computed = new BitSet(REGION_SIZE * REGION_SIZE);
+        protected final BitSet generated = new BitSet(REGION_SIZE * REGION_SIZE);
+        //endregion Fields
+    }
+}
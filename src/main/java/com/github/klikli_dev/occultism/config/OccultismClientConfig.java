@@ -23,6 +23,7 @@
 package com.github.klikli_dev.occultism.config;
 
 import com.github.klikli_dev.occultism.config.value.CachedBoolean;
+import com.github.klikli_dev.occultism.config.value.CachedInt;
 import net.minecraftforge.common.ForgeConfigSpec;
 
 public class OccultismClientConfig extends ConfigBase {
@@ -64,6 +65,7 @@ public class OccultismClientConfig extends ConfigBase {
     public class MiscSettings extends ConfigCategoryBase {
         //region Fields
         public final CachedBoolean syncJeiSearch;
+        public final CachedInt divinationRodScanRange;
         //endregion Fields
 
         //region Initialization
@@ -75,6 +77,10 @@ public class OccultismClientConfig extends ConfigBase {
                     builder.comment(
                             "Sync JEI search in storage actuator.")
                             .define("syncJeiSearch", false));
+            this.divinationRodScanRange = CachedInt.cache(this,
+                    builder.comment(
+                            "The radius in blocks the divination rod will search for the target block.")
+                            .defineInRange("divinationRodScanRange", 96, 16, 256));
             builder.pop();
         }
         //endregion Initialization
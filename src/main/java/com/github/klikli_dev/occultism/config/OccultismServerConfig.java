@@ -88,6 +88,7 @@ public class OccultismServerConfig extends ConfigBase {
         public final CachedFloat tier4CrusherOutputMultiplier;
         public final CachedInt drikwingFamiliarSlowFallingSeconds;
         public final CachedInt crusherResultPickupDelay;
+        public final CachedInt transporterInventorySlots;
         //endregion Fields
 
         //region Initialization
@@ -137,6 +138,11 @@ public class OccultismServerConfig extends ConfigBase {
                             "The minimum ticks before a crusher can pick up an item it dropped. Default is 3 Seconds = 3 * 20 Ticks.")
                             .define("crusherResultPickupDelay", 20 * 3));
 
+            this.transporterInventorySlots = CachedInt.cache(this,
+                    builder.comment(
+                            "The number of inventory slots of Transporter Spirits. Values above 1 enable bulk transfer: the spirit takes as many matching stacks as fit in one visit and deposits all of them.")
+                            .defineInRange("transporterInventorySlots", 1, 1, 27));
+
             builder.pop();
         }
         //endregion Initialization
@@ -243,6 +249,7 @@ public class OccultismServerConfig extends ConfigBase {
         public final CachedInt controllerBaseSlots;
         public final CachedInt controllerStackSize;
         public final CachedBoolean overrideItemStackSizes;
+        public final CachedInt pagedStackQueryThreshold;
         //endregion Fields
 
         //region Initialization
@@ -273,6 +280,14 @@ public class OccultismServerConfig extends ConfigBase {
                             "item type (such as 16 for ender pearls, 64 for iron ingot). WARNING: Setting this to " +
                             "false may have a negative impact on performance.")
                             .define("overrideItemStackSizes", true));
+            this.pagedStackQueryThreshold = CachedInt.cache(this,
+                    builder.comment(
+                            "The amount of distinct stacks in a storage actuator above which the storage gui only " +
+                            "receives the visible stacks from the server, and search and sorting happen server side. " +
+                            "Below that the gui receives all stacks. In paged mode item names for search and name " +
+                        "sorting are in the server's language, so results may differ for clients using another " +
+                        "language, and tooltip search (#) only matches item names.")
+                            .define("pagedStackQueryThreshold", 8192));
             builder.pop();
         }
         //endregion Initialization
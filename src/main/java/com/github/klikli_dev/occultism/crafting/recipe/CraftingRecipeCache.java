@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.github.klikli_dev.occultism.crafting.recipe;
+
+import net.minecraft.inventory.CraftingInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.ICraftingRecipe;
+import net.minecraft.item.crafting.IRecipeType;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.world.World;
+
+import java.util.*;
+
+/**
+ * Caches crafting recipes by the layout of a crafting grid, so repeated or refilled grids find their recipe
+ * without testing every crafting recipe.
+ * The key holds the item and nbt of every slot, so a grid only shares an entry with identical grids and gets the recipe
+ * the recipe manager returned for them. The cached recipe is still verified with {@link ICraftingRecipe#matches} to
+ * guard against hash collisions. Only grids that matched a recipe are cached.
+ * The cache is scoped to the recipe manager, see {@link RecipeManagerScoped}.
+ * Only used on the logical server, client side lookups go to the recipe manager directly.
+ */
+public class CraftingRecipeCache {
+    //region Fields
+    protected static final int MAX_CACHED_GRIDS = 1024;
+
+    private static final RecipeManagerScoped<CraftingRecipeCache> INSTANCE =
+            new RecipeManagerScoped<>(recipeManager -> new CraftingRecipeCache());
+
+    protected final Map<GridKey, ICraftingRecipe> recipesByGrid =
+            new LinkedHashMap<GridKey, ICraftingRecipe>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<GridKey, ICraftingRecipe> eldest) {
+                    return this.size() > MAX_CACHED_GRIDS;
+                }
+            };
+    //endregion Fields
+
+    //region Static Methods
+
+    /**
+     * Finds the crafting recipe matching the given grid.
+     *
+     * @param world     the world.
+     * @param inventory the crafting grid.
+     * @return the matching recipe, or an empty optional if none matches.
+     */
+    public static Optional<ICraftingRecipe> findRecipe(World world, CraftingInventory inventory) {
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (world.isRemote) {
+            return recipeManager.getRecipe(IRecipeType.CRAFTING, inventory, world);
+        }
+
+        CraftingRecipeCache cache = get(recipeManager);
+        GridKey key = GridKey.of(inventory);
+        ICraftingRecipe cached = cache.recipesByGrid.get(key);
+        if (cached != null && cached.matches(inventory, world))
+            return Optional.of(cached);
+
+        Optional<ICraftingRecipe> recipe = recipeManager.getRecipe(IRecipeType.CRAFTING, inventory, world);
+        recipe.ifPresent(r -> cache.recipesByGrid.put(key, r));
+        return recipe;
+    }
+
+    protected static CraftingRecipeCache get(RecipeManager recipeManager) {
+        return INSTANCE.get(recipeManager);
+    }
+    //endregion Static Methods
+
+    /**
+     * The layout of a crafting grid: item and nbt hash per slot, ignoring counts.
+     */
+    protected static class GridKey {
+        //region Fields
+        protected final int[] slots;
+        protected final int hash;
+        //endregion Fields
+
+        //region Initialization
+        protected GridKey(int[] slots) {
+            this.slots = slots;
+            this.hash = Arrays.hashCode(slots);
+        }
+        //endregion Initialization
+
+        //region Overrides
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+            GridKey other = (GridKey) o;
+            return this.hash == other.hash && Arrays.equals(this.slots, other.slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+        //endregion Overrides
+
+        //region Static Methods
+        public static GridKey of(CraftingInventory inventory) {
+            int[] slots = new int[inventory.getSizeInventory() * 2];
+            for (int i = 0; i < inventory.getSizeInventory(); i++) {
+                ItemStack stack = inventory.getStackInSlot(i);
+                if (stack.isEmpty()) {
+                    slots[i * 2] = -1;
+                }
+                else {
+                    slots[i * 2] = Item.getIdFromItem(stack.getItem());
+                    slots[i * 2 + 1] = stack.hasTag() ? stack.getTag().hashCode() : 0;
+                }
+            }
+            return new GridKey(slots);
+        }
+        //endregion Static Methods
+    }
+}
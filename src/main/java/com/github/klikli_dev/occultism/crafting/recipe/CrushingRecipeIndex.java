@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.crafting.recipe;
+
+import com.github.klikli_dev.occultism.registry.OccultismRecipes;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.Ingredient;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.world.World;
+
+import java.util.*;
+
+/**
+ * Indexes crushing recipes by input item, so crushers can check items and find recipes with a hash lookup.
+ * Ingredients that are not simple (e.g. NBT-sensitive) or do not resolve to items are kept in a separate list that is
+ * always tested.
+ * The index is scoped to the recipe manager, see {@link RecipeManagerScoped}.
+ */
+public class CrushingRecipeIndex {
+    //region Fields
+    private static final RecipeManagerScoped<CrushingRecipeIndex> INSTANCE = new RecipeManagerScoped<>(
+            recipeManager -> new CrushingRecipeIndex(
+                    recipeManager.getRecipesForType(OccultismRecipes.CRUSHING_TYPE.get())));
+
+    protected final Map<Item, List<CrushingRecipe>> recipesByItem = new HashMap<>();
+    protected final List<CrushingRecipe> unindexedRecipes = new ArrayList<>();
+    //endregion Fields
+
+    //region Initialization
+    protected CrushingRecipeIndex(List<CrushingRecipe> recipes) {
+        for (CrushingRecipe recipe : recipes) {
+            Set<Item> items = new HashSet<>();
+            boolean isIndexed = true;
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                ItemStack[] matchingStacks = ingredient.getMatchingStacks();
+                if (!ingredient.isSimple() || matchingStacks.length == 0) {
+                    isIndexed = false;
+                    break;
+                }
+                for (ItemStack stack : matchingStacks) {
+                    items.add(stack.getItem());
+                }
+            }
+
+            if (isIndexed) {
+                for (Item item : items) {
+                    this.recipesByItem.computeIfAbsent(item, i -> new ArrayList<>()).add(recipe);
+                }
+            }
+            else {
+                this.unindexedRecipes.add(recipe);
+            }
+        }
+    }
+    //endregion Initialization
+
+    //region Static Methods
+
+    /**
+     * Checks if the given stack is an ingredient of any crushing recipe.
+     *
+     * @param world the world.
+     * @param stack the stack to check.
+     * @return true if the stack can be crushed.
+     */
+    public static boolean isIngredient(World world, ItemStack stack) {
+        CrushingRecipeIndex index = get(world.getRecipeManager());
+        for (CrushingRecipe recipe : index.getCandidates(stack)) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                if (ingredient.test(stack))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first crushing recipe matching the given inventory.
+     *
+     * @param world     the world.
+     * @param inventory the inventory holding the stack to crush.
+     * @return the matching recipe, or an empty optional if none matches.
+     */
+    public static Optional<CrushingRecipe> findRecipe(World world, ItemStackFakeInventory inventory) {
+        CrushingRecipeIndex index = get(world.getRecipeManager());
+        for (CrushingRecipe recipe : index.getCandidates(inventory.getStackInSlot(0))) {
+            if (recipe.matches(inventory, world))
+                return Optional.of(recipe);
+        }
+        return Optional.empty();
+    }
+
+    protected static CrushingRecipeIndex get(RecipeManager recipeManager) {
+        return INSTANCE.get(recipeManager);
+    }
+    //endregion Static Methods
+
+    //region Methods
+
+    /**
+     * @param stack the stack.
+     * @return the recipes that may accept the given stack, indexed recipes first.
+     */
+    protected Iterable<CrushingRecipe> getCandidates(ItemStack stack) {
+        List<CrushingRecipe> indexed = this.recipesByItem.getOrDefault(stack.getItem(), Collections.emptyList());
+        if (this.unindexedRecipes.isEmpty())
+            return indexed;
+        if (indexed.isEmpty())
+            return this.unindexedRecipes;
+        List<CrushingRecipe> result = new ArrayList<>(indexed.size() + this.unindexedRecipes.size());
+        result.addAll(indexed);
+        result.addAll(this.unindexedRecipes);
+        return result;
+    }
+    //endregion Methods
+}
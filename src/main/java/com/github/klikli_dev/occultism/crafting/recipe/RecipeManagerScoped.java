@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.crafting.recipe;
+
+import net.minecraft.item.crafting.RecipeManager;
+
+import java.lang.ref.WeakReference;
+import java.util.function.Function;
+
+/**
+ * Holds a value derived from the recipes of a recipe manager, such as a recipe index or cache.
+ * The value is created anew whenever the recipe manager is replaced, which happens on every data pack reload.
+ * The recipe manager is only weakly referenced, so a replaced manager is not kept alive by the value.
+ *
+ * @param <T> the type of the value.
+ */
+public class RecipeManagerScoped<T> {
+    //region Fields
+    protected final Function<RecipeManager, T> factory;
+    protected WeakReference<RecipeManager> recipeManager = new WeakReference<>(null);
+    protected T value;
+    //endregion Fields
+
+    //region Initialization
+
+    /**
+     * @param factory creates the value for a recipe manager.
+     */
+    public RecipeManagerScoped(Function<RecipeManager, T> factory) {
+        this.factory = factory;
+    }
+    //endregion Initialization
+
+    //region Methods
+
+    /**
+     * Gets the value for the given recipe manager, creating it if the recipe manager was replaced.
+     *
+     * @param recipeManager the current recipe manager.
+     * @return the value.
+     */
+    public T get(RecipeManager recipeManager) {
+        if (this.value == null || this.recipeManager.get() != recipeManager) {
+            this.value = this.factory.apply(recipeManager);
+            this.recipeManager = new WeakReference<>(recipeManager);
+        }
+        return this.value;
+    }
+    //endregion Methods
+}
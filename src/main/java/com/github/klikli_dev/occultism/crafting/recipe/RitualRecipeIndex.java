@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.crafting.recipe;
+
+import com.github.klikli_dev.occultism.common.ritual.pentacle.Pentacle;
+import com.github.klikli_dev.occultism.common.ritual.pentacle.PentacleManager;
+import com.github.klikli_dev.occultism.registry.OccultismRecipes;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.*;
+
+/**
+ * Indexes ritual recipes by activation item and pentacle, so identifying a ritual only needs to check the few recipes
+ * that can be started with the held item.
+ * The index is scoped to the recipe manager, see {@link RecipeManagerScoped}.
+ */
+public class RitualRecipeIndex {
+    //region Fields
+    private static final RecipeManagerScoped<RitualRecipeIndex> INSTANCE = new RecipeManagerScoped<>(
+            recipeManager -> new RitualRecipeIndex(
+                    recipeManager.getRecipesForType(OccultismRecipes.RITUAL_TYPE.get())));
+
+    /**
+     * Candidate recipes by activation item, grouped by pentacle id in order of first appearance.
+     */
+    protected final Map<Item, Map<ResourceLocation, List<RitualRecipe>>> recipesByItem = new HashMap<>();
+    /**
+     * Recipes whose activation ingredient cannot be resolved to items, these are always candidates.
+     */
+    protected final Map<ResourceLocation, List<RitualRecipe>> unindexedRecipes = new LinkedHashMap<>();
+    //endregion Fields
+
+    //region Initialization
+    protected RitualRecipeIndex(List<RitualRecipe> recipes) {
+        for (RitualRecipe recipe : recipes) {
+            ItemStack[] matchingStacks = recipe.getActivationItem().getMatchingStacks();
+            if (matchingStacks.length == 0) {
+                add(this.unindexedRecipes, recipe);
+                continue;
+            }
+            Set<Item> items = new HashSet<>();
+            for (ItemStack stack : matchingStacks) {
+                if (items.add(stack.getItem()))
+                    add(this.recipesByItem.computeIfAbsent(stack.getItem(), i -> new LinkedHashMap<>()), recipe);
+            }
+        }
+    }
+    //endregion Initialization
+
+    //region Static Methods
+
+    /**
+     * Finds the first ritual recipe that can be started with the given activation item at the given golden bowl.
+     * Each distinct pentacle is validated at most once.
+     *
+     * @param world              the world.
+     * @param goldenBowlPosition the position of the golden bowl.
+     * @param activationItem     the item used to start the ritual.
+     * @return the matching recipe, or null if none matches.
+     */
+    public static RitualRecipe findRecipe(World world, BlockPos goldenBowlPosition, ItemStack activationItem) {
+        RitualRecipeIndex index = get(world.getRecipeManager());
+        RitualRecipe recipe = index.findRecipe(index.recipesByItem.getOrDefault(activationItem.getItem(),
+                Collections.emptyMap()), world, goldenBowlPosition, activationItem);
+        if (recipe == null)
+            recipe = index.findRecipe(index.unindexedRecipes, world, goldenBowlPosition, activationItem);
+        return recipe;
+    }
+
+    protected static RitualRecipeIndex get(RecipeManager recipeManager) {
+        return INSTANCE.get(recipeManager);
+    }
+
+    private static void add(Map<ResourceLocation, List<RitualRecipe>> recipesByPentacle, RitualRecipe recipe) {
+        recipesByPentacle.computeIfAbsent(recipe.getPentacleId(), id -> new ArrayList<>()).add(recipe);
+    }
+    //endregion Static Methods
+
+    //region Methods
+    protected RitualRecipe findRecipe(Map<ResourceLocation, List<RitualRecipe>> recipesByPentacle, World world,
+                                      BlockPos goldenBowlPosition, ItemStack activationItem) {
+        for (Map.Entry<ResourceLocation, List<RitualRecipe>> entry : recipesByPentacle.entrySet()) {
+            boolean isPentacleChecked = false;
+            for (RitualRecipe recipe : entry.getValue()) {
+                if (!recipe.getActivationItem().test(activationItem))
+                    continue;
+
+                //only validate the pentacle once we know at least one recipe could use it.
+                if (!isPentacleChecked) {
+                    Pentacle pentacle = PentacleManager.get(entry.getKey());
+                    if (pentacle == null || !pentacle.validate(world, goldenBowlPosition))
+                        break;
+                    isPentacleChecked = true;
+                }
+
+                if (recipe.getRitual().areAdditionalIngredientsFulfilled(world, goldenBowlPosition,
+                        recipe.getIngredients()))
+                    return recipe;
+            }
+        }
+        return null;
+    }
+    //endregion Methods
+}
@@ -93,12 +93,17 @@ public class StorageControllerRecipeTransferHandler<T extends Container & IStora
 //            return this.helper.createUserErrorWithTooltip(I18n.format("jei." + Occultism.MODID + "error.invalid_type"));
 //        }
 
+        //jei also calls this without transferring to check for errors, only contact the server for actual transfers.
+        if (!doTransfer) {
+            return null;
+        }
+
         //if recipe is in recipe manager send by id, otherwise fallback to ingredient list
         if (player.getEntityWorld().getRecipeManager().getRecipe(recipe.getId()).isPresent()) {
-            OccultismPackets.sendToServer(new MessageSetRecipeByID(recipe.getId()));
+            OccultismPackets.sendToServer(new MessageSetRecipeByID(recipe.getId(), maxTransfer));
         }
         else {
-            OccultismPackets.sendToServer(new MessageSetRecipe(this.recipeToTag(container, recipeLayout)));
+            OccultismPackets.sendToServer(new MessageSetRecipe(this.recipeToTag(container, recipeLayout), maxTransfer));
         }
 
         return null;
@@ -91,7 +91,7 @@ public class MessageInsertMouseHeldItem extends MessageBase {
             OccultismPackets.sendTo(player, new MessageUpdateMouseHeldItem(result));
 
             //update the storage controller
-            OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+            storageController.sendStacksTo(player);
             player.openContainer.detectAndSendChanges();
         }
     }
@@ -32,9 +32,20 @@ import net.minecraftforge.fml.network.NetworkEvent;
 
 public class MessageRequestStacks extends MessageBase {
 
+    //region Fields
+    /**
+     * The stack revision the client currently has, -1 if it has no stacks and needs a full snapshot.
+     */
+    private int stackRevision;
+    //endregion Fields
+
     //region Initialization
     public MessageRequestStacks() {
+        this(-1);
+    }
 
+    public MessageRequestStacks(int stackRevision) {
+        this.stackRevision = stackRevision;
     }
 
     public MessageRequestStacks(PacketBuffer buf) {
@@ -52,7 +63,8 @@ public class MessageRequestStacks extends MessageBase {
             IStorageController storageController = ((IStorageControllerContainer) player.openContainer)
                                                            .getStorageController();
             if (storageController != null) {
-                OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+                storageController.setStackRevision(player.getUniqueID(), this.stackRevision);
+                storageController.sendStacksTo(player);
                 OccultismPackets
                         .sendTo(player, new MessageUpdateLinkedMachines(storageController.getLinkedMachines()));
                 player.openContainer.detectAndSendChanges();
@@ -62,12 +74,12 @@ public class MessageRequestStacks extends MessageBase {
 
     @Override
     public void encode(PacketBuffer buf) {
-
+        buf.writeVarInt(this.stackRevision);
     }
 
     @Override
     public void decode(PacketBuffer buf) {
-
+        this.stackRevision = buf.readVarInt();
     }
     //endregion Overrides
 }
@@ -24,9 +24,9 @@ package com.github.klikli_dev.occultism.network;
 import com.github.klikli_dev.occultism.api.common.container.IStorageControllerContainer;
 import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
 import com.github.klikli_dev.occultism.common.misc.ItemStackComparator;
-import com.github.klikli_dev.occultism.util.StorageUtil;
+import com.github.klikli_dev.occultism.common.misc.ItemStackKey;
+import com.github.klikli_dev.occultism.common.misc.RecipeTransferResolver;
 import net.minecraft.entity.player.ServerPlayerEntity;
-import net.minecraft.inventory.CraftingInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
@@ -36,7 +36,9 @@ import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.minecraftforge.items.wrapper.PlayerMainInvWrapper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -47,6 +49,7 @@ public class MessageSetRecipe extends MessageBase {
     //region Fields
     private CompoundNBT nbt;
     private int index = 0;
+    private boolean maxTransfer;
     //endregion Fields
 
     //region Initialization
@@ -54,8 +57,9 @@ public class MessageSetRecipe extends MessageBase {
         this.decode(buf);
     }
 
-    public MessageSetRecipe(CompoundNBT nbt) {
+    public MessageSetRecipe(CompoundNBT nbt, boolean maxTransfer) {
         this.nbt = nbt;
+        this.maxTransfer = maxTransfer;
     }
     //endregion Initialization
 
@@ -73,68 +77,42 @@ public class MessageSetRecipe extends MessageBase {
         if (storageController == null) {
             return;
         }
-        //clear the current crafting matrix
-        StorageUtil.clearOpenCraftingMatrix(player, false);
-
-        CraftingInventory craftMatrix = container.getCraftMatrix();
-
+        //parse the accepted alternatives per slot, sharing comparators between slots asking for the same item
+        Map<ItemStackKey, ItemStackComparator> comparators = new HashMap<>();
+        List<List<ItemStackComparator>> slotAlternatives = new ArrayList<>();
         for (int slot = 0; slot < 9; slot++) {
-            Map<Integer, ItemStack> map = new HashMap<Integer, ItemStack>();
-
-            //parse the slots
+            List<ItemStackComparator> alternatives = new ArrayList<>();
             ListNBT invList = this.nbt.getList("s" + slot, Constants.NBT.TAG_COMPOUND);
             for (int i = 0; i < invList.size(); i++) {
-                ItemStack s = ItemStack.read(invList.getCompound(i));
-                map.put(i, s);
+                ItemStack stack = ItemStack.read(invList.getCompound(i));
+                if (!stack.isEmpty())
+                    alternatives.add(comparators.computeIfAbsent(ItemStackKey.of(stack),
+                            key -> new ItemStackComparator(stack, true)));
             }
+            slotAlternatives.add(alternatives);
+        }
 
-            //region fill in recipe
-            for (int i = 0; i < map.size(); i++) {
-
-                ItemStack stack = map.get(i);
-                if (stack == null || stack.isEmpty()) {
-                    continue;
-                }
-
-                ItemStackComparator comparator = new ItemStackComparator(stack, true);
-
-                //attempt to get the desired stack from the player inventory
-                ItemStack extractedStack = StorageUtil
-                                                   .extractItem(new PlayerMainInvWrapper(player.inventory), comparator,
-                                                           1, true);
-                if (extractedStack != null && !extractedStack.isEmpty() && craftMatrix.getStackInSlot(slot).isEmpty()) {
-                    //if we found the desired stack, extract it for real and place it in the matrix
-                    StorageUtil.extractItem(new PlayerMainInvWrapper(player.inventory), comparator, 1, false);
-                    craftMatrix.setInventorySlotContents(slot, extractedStack);
-                    break;
-                }
+        new RecipeTransferResolver(storageController, new PlayerMainInvWrapper(player.inventory),
+                container.getCraftMatrix()).transfer(slotAlternatives, this.maxTransfer);
 
-                //if we did not find anything in the player inventory, get it from the network now
-                stack = storageController.getItemStack(!stack.isEmpty() ? comparator : null, 1, false);
-                if (!stack.isEmpty() && craftMatrix.getStackInSlot(slot).isEmpty()) {
-                    //if extraction was successful, place it in the matrix
-                    craftMatrix.setInventorySlotContents(slot, stack);
-                    break;
-                }
-            }
-            //endregion fill in recipe
-        }
         //sync to client
         container.updateCraftingSlots(true);
         //finally update controller content for client
-        OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+        storageController.sendStacksTo(player);
     }
 
     @Override
     public void encode(PacketBuffer buf) {
         buf.writeCompoundTag(this.nbt);
         buf.writeInt(this.index);
+        buf.writeBoolean(this.maxTransfer);
     }
 
     @Override
     public void decode(PacketBuffer buf) {
         this.nbt = buf.readCompoundTag();
         this.index = buf.readInt();
+        this.maxTransfer = buf.readBoolean();
     }
     //endregion Overrides
 }
@@ -23,11 +23,9 @@ package com.github.klikli_dev.occultism.network;
 
 import com.github.klikli_dev.occultism.api.common.container.IStorageControllerContainer;
 import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
-import com.github.klikli_dev.occultism.util.StorageUtil;
+import com.github.klikli_dev.occultism.common.misc.RecipeTransferResolver;
 import com.google.common.base.Preconditions;
 import net.minecraft.entity.player.ServerPlayerEntity;
-import net.minecraft.inventory.CraftingInventory;
-import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.item.crafting.Ingredient;
 import net.minecraft.network.PacketBuffer;
@@ -38,6 +36,10 @@ import net.minecraftforge.common.crafting.IShapedRecipe;
 import net.minecraftforge.fml.network.NetworkEvent;
 import net.minecraftforge.items.wrapper.PlayerMainInvWrapper;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Based on https://github.com/Lothrazar/Storage-Network
  */
@@ -45,6 +47,7 @@ public class MessageSetRecipeByID extends MessageBase {
 
     //region Fields
     private ResourceLocation id;
+    private boolean maxTransfer;
     //endregion Fields
 
     //region Initialization
@@ -52,8 +55,9 @@ public class MessageSetRecipeByID extends MessageBase {
         this.decode(buf);
     }
 
-    public MessageSetRecipeByID(ResourceLocation id) {
+    public MessageSetRecipeByID(ResourceLocation id, boolean maxTransfer) {
         this.id = id;
+        this.maxTransfer = maxTransfer;
     }
     //endregion Initialization
 
@@ -75,45 +79,32 @@ public class MessageSetRecipeByID extends MessageBase {
         IRecipe<?> recipe = player.getEntityWorld().getRecipeManager().getRecipe(this.id).orElse(null);
         Preconditions.checkArgument(recipe != null); //should not happen
 
-        StorageUtil.clearOpenCraftingMatrix(player, false);
-        CraftingInventory craftMatrix = container.getCraftMatrix();
         NonNullList<Ingredient> ingredients = this.getIngredientsForRecipe(recipe);
+        List<List<Ingredient>> slotAlternatives = new ArrayList<>();
+        for (Ingredient ingredient : ingredients) {
+            slotAlternatives.add(ingredient.hasNoMatchingItems() ? Collections.emptyList() :
+                                 Collections.singletonList(ingredient));
+        }
 
-        for (int slot = 0; slot < 9; slot++) {
-            Ingredient ingredient = ingredients.get(slot);
-            ItemStack extractedStack = StorageUtil.extractItem(new PlayerMainInvWrapper(player.inventory), ingredient,
-                    1, true);
-
-            if (extractedStack != null && !extractedStack.isEmpty() && craftMatrix.getStackInSlot(slot).isEmpty()) {
-                //if we found the desired stack, extract it for real and place it in the matrix
-                StorageUtil.extractItem(new PlayerMainInvWrapper(player.inventory), ingredient, 1, false);
-                craftMatrix.setInventorySlotContents(slot, extractedStack);
-                continue;
-            }
+        new RecipeTransferResolver(storageController, new PlayerMainInvWrapper(player.inventory),
+                container.getCraftMatrix()).transfer(slotAlternatives, this.maxTransfer);
 
-            //if we did not find anything in the player inventory, get it from the network now
-            extractedStack = storageController.getItemStack(ingredient, 1, false);
-            if (!extractedStack.isEmpty() && craftMatrix.getStackInSlot(slot).isEmpty()) {
-                //if extraction was successful, place it in the matrix
-                craftMatrix.setInventorySlotContents(slot, extractedStack);
-                continue;
-            }
-            //endregion fill in recipe
-        }
         //sync to client
         container.updateCraftingSlots(true);
         //finally update controller content for client
-        OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+        storageController.sendStacksTo(player);
     }
 
     @Override
     public void encode(PacketBuffer buf) {
         buf.writeResourceLocation(this.id);
+        buf.writeBoolean(this.maxTransfer);
     }
 
     @Override
     public void decode(PacketBuffer buf) {
         this.id = buf.readResourceLocation();
+        this.maxTransfer = buf.readBoolean();
     }
     //endregion Overrides
 
@@ -112,7 +112,7 @@ public class MessageTakeItem extends MessageBase {
             }
 
             //finally, update the storage controller stacks
-            OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+            storageController.sendStacksTo(player);
             player.openContainer.detectAndSendChanges();
         }
     }
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright 2020 klikli-dev
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.klikli_dev.occultism.network;
+
+import com.github.klikli_dev.occultism.api.client.gui.IStorageControllerGui;
+import com.github.klikli_dev.occultism.common.misc.StackQuery;
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This message sends the stacks matching a {@link StackQuery} to a viewer of a very large storage controller.
+ * Only contains the requested window of stacks, plus the amount of matching stacks for paging.
+ */
+public class MessageUpdateStackPage extends MessageBase {
+
+    //region Fields
+    private StackQuery query;
+    private List<ItemStack> stacks;
+    private int matchingCount;
+    private int usedSlots;
+    private int maxSlots;
+    //endregion Fields
+
+    //region Initialization
+    public MessageUpdateStackPage(PacketBuffer buf) {
+        this.decode(buf);
+    }
+
+    /**
+     * @param query         the query the stacks were selected by.
+     * @param stacks        the stacks in the requested window.
+     * @param matchingCount the amount of stacks matching the query.
+     * @param usedSlots     the used slots.
+     * @param maxSlots      the max slots.
+     */
+    public MessageUpdateStackPage(StackQuery query, List<ItemStack> stacks, int matchingCount, int usedSlots,
+                                  int maxSlots) {
+        this.query = query;
+        this.stacks = stacks;
+        this.matchingCount = matchingCount;
+        this.usedSlots = usedSlots;
+        this.maxSlots = maxSlots;
+    }
+    //endregion Initialization
+
+    //region Overrides
+
+    @Override
+    @OnlyIn(Dist.CLIENT)
+    public void onClientReceived(Minecraft minecraft, PlayerEntity player, NetworkEvent.Context context) {
+        if (minecraft.currentScreen instanceof IStorageControllerGui) {
+            IStorageControllerGui gui = (IStorageControllerGui) minecraft.currentScreen;
+            gui.setStackPage(this.query, this.stacks, this.matchingCount);
+            gui.setUsedSlots(this.usedSlots);
+            gui.setMaxSlots(this.maxSlots);
+            gui.markDirty();
+        }
+    }
+
+    @Override
+    public void encode(PacketBuffer buf) {
+        this.query.write(buf);
+        buf.writeVarInt(this.matchingCount);
+        buf.writeVarInt(this.usedSlots);
+        buf.writeVarInt(this.maxSlots);
+        buf.writeVarInt(this.stacks.size());
+        for (ItemStack stack : this.stacks) {
+            buf.writeItemStack(stack);
+            buf.writeVarInt(stack.getCount());
+        }
+    }
+
+    @Override
+    public void decode(PacketBuffer buf) {
+        this.query = StackQuery.read(buf);
+        this.matchingCount = buf.readVarInt();
+        this.usedSlots = buf.readVarInt();
+        this.maxSlots = buf.readVarInt();
+        int stacksSize = buf.readVarInt();
+        this.stacks = new ArrayList<>(stacksSize);
+        for (int i = 0; i < stacksSize; i++) {
+            ItemStack stack = buf.readItemStack();
+            stack.setCount(buf.readVarInt());
+            this.stacks.add(stack);
+        }
+    }
+    //endregion Overrides
+}
@@ -23,33 +23,54 @@
 package com.github.klikli_dev.occultism.network;
 
 import com.github.klikli_dev.occultism.api.client.gui.IStorageControllerGui;
-import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.fml.network.NetworkEvent;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 /**
  * This message sends the stacks in the currently opened storage controller.
+ * Either contains a full snapshot of all stacks, or a delta containing only the stacks changed and removed since
+ * baseRevision. Deltas are only applied if the client is at baseRevision, otherwise a full snapshot is requested.
+ * <p>
+ * Stacks are written as varint item ids and counts, with their nbt deduplicated into a table, and then deflated.
+ * Buffers and (de)compressors are reused per thread, and the stacks are decoded on the network thread.
  */
 public class MessageUpdateStacks extends MessageBase {
 
     //region Fields
     private static final int DEFAULT_BUFFER_SIZE = 2 * 1024;
 
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+    private static final ThreadLocal<PacketBuffer> UNCOMPRESSED_BUFFER =
+            ThreadLocal.withInitial(() -> new PacketBuffer(Unpooled.buffer(DEFAULT_BUFFER_SIZE)));
+    private static final ThreadLocal<PacketBuffer> COMPRESSED_BUFFER =
+            ThreadLocal.withInitial(() -> new PacketBuffer(Unpooled.buffer(DEFAULT_BUFFER_SIZE)));
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[DEFAULT_BUFFER_SIZE]);
+
     private List<ItemStack> stacks;
+    private List<ItemStack> removedStacks;
     private int usedSlots;
     private int maxSlots;
-    private ByteBuf payload;
+    private boolean isDelta;
+    private int baseRevision;
+    private int revision;
+    private int uncompressedSize;
+    private byte[] payload;
 
     //endregion Fields
 
@@ -58,10 +79,35 @@ public class MessageUpdateStacks extends MessageBase {
         this.decode(buf);
     }
 
-    public MessageUpdateStacks(List<ItemStack> stacks, int usedSlots, int maxSlots) {
+    public MessageUpdateStacks(List<ItemStack> stacks, int usedSlots, int maxSlots, int revision) {
         this.stacks = stacks;
+        this.removedStacks = new ArrayList<>();
+        this.usedSlots = usedSlots;
+        this.maxSlots = maxSlots;
+        this.isDelta = false;
+        this.revision = revision;
+        this.compress();
+    }
+
+    /**
+     * Creates a delta update.
+     *
+     * @param changedStacks the stacks that were added or changed count since baseRevision, with their new count.
+     * @param removedStacks the stacks that were removed since baseRevision.
+     * @param usedSlots     the used slots.
+     * @param maxSlots      the max slots.
+     * @param baseRevision  the revision the client needs to be at to apply this delta.
+     * @param revision      the revision after applying this delta.
+     */
+    public MessageUpdateStacks(List<ItemStack> changedStacks, List<ItemStack> removedStacks, int usedSlots,
+                               int maxSlots, int baseRevision, int revision) {
+        this.stacks = changedStacks;
+        this.removedStacks = removedStacks;
         this.usedSlots = usedSlots;
         this.maxSlots = maxSlots;
+        this.isDelta = true;
+        this.baseRevision = baseRevision;
+        this.revision = revision;
         this.compress();
     }
     //endregion Initialization
@@ -71,11 +117,21 @@ public class MessageUpdateStacks extends MessageBase {
     @Override
     @OnlyIn(Dist.CLIENT)
     public void onClientReceived(Minecraft minecraft, PlayerEntity player, NetworkEvent.Context context) {
-        this.uncompress();
         if(minecraft.currentScreen instanceof IStorageControllerGui){
             IStorageControllerGui gui = (IStorageControllerGui) minecraft.currentScreen;
             if (gui != null) {
-                gui.setStacks(this.stacks);
+                if (!this.isDelta) {
+                    gui.setStacks(this.stacks);
+                }
+                else if (gui.getStackRevision() == this.baseRevision) {
+                    gui.updateStacks(this.stacks, this.removedStacks);
+                }
+                else {
+                    //we missed an update, so request a full snapshot.
+                    OccultismPackets.sendToServer(new MessageRequestStacks());
+                    return;
+                }
+                gui.setStackRevision(this.revision);
                 gui.setUsedSlots(this.usedSlots);
                 gui.setMaxSlots(this.maxSlots);
                 gui.markDirty();
@@ -87,75 +143,158 @@ public class MessageUpdateStacks extends MessageBase {
     public void encode(PacketBuffer buf) {
         buf.writeVarInt(this.usedSlots);
         buf.writeVarInt(this.maxSlots);
+        buf.writeVarInt(this.revision);
+        buf.writeBoolean(this.isDelta);
+        if (this.isDelta)
+            buf.writeVarInt(this.baseRevision);
 
-        //write compressed size, then compressed data
-        buf.writeVarInt(this.payload.readableBytes());
-        buf.writeBytes(this.payload, 0, this.payload.readableBytes());
+        //write uncompressed size, compressed size, then compressed data
+        buf.writeVarInt(this.uncompressedSize);
+        buf.writeVarInt(this.payload.length);
+        buf.writeBytes(this.payload);
     }
 
     @Override
     public void decode(PacketBuffer buf) {
         this.usedSlots = buf.readVarInt();
         this.maxSlots = buf.readVarInt();
-        //read compressed size, then compressed data.
-        int compressedSize = buf.readVarInt();
-        this.payload = Unpooled.buffer(compressedSize);
-        buf.readBytes(this.payload, 0, compressedSize);
+        this.revision = buf.readVarInt();
+        this.isDelta = buf.readBoolean();
+        if (this.isDelta)
+            this.baseRevision = buf.readVarInt();
+        //read uncompressed size, compressed size, then compressed data.
+        this.uncompressedSize = buf.readVarInt();
+        this.payload = new byte[buf.readVarInt()];
+        buf.readBytes(this.payload);
+
+        //decode here, on the network thread, instead of on the main thread when handling the message.
+        this.uncompress();
+        this.payload = null;
     }
     //endregion Overrides
 
+    //region Static Methods
+    private static void writeTag(PacketBuffer buffer, ItemStack stack, Map<CompoundNBT, Integer> tags) {
+        CompoundNBT tag = getShareTag(stack);
+        buffer.writeVarInt(tag == null ? 0 : tags.get(tag) + 1);
+    }
+
+    private static void collectTag(ItemStack stack, Map<CompoundNBT, Integer> tags) {
+        CompoundNBT tag = getShareTag(stack);
+        if (tag != null && !tags.containsKey(tag))
+            tags.put(tag, tags.size());
+    }
+
+    /**
+     * Gets the nbt that would be sent by {@link PacketBuffer#writeItemStack(ItemStack)}.
+     */
+    private static CompoundNBT getShareTag(ItemStack stack) {
+        Item item = stack.getItem();
+        return item.isDamageable(stack) || item.shouldSyncTag() ? stack.getShareTag() : null;
+    }
+
+    private static ItemStack readStack(PacketBuffer buffer, List<CompoundNBT> tags, int count) {
+        ItemStack stack = new ItemStack(Item.getItemById(buffer.readVarInt()), count);
+        int tag = buffer.readVarInt();
+        if (tag > 0)
+            stack.readShareTag(tags.get(tag - 1).copy());
+        return stack;
+    }
+    //endregion Static Methods
+
     //region Methods
     public void uncompress() {
-        Inflater decompressor = new Inflater();
-        decompressor.setInput(this.payload.array());
-
-        // Create an expandable packet buffer to hold the decompressed data
-        PacketBuffer uncompressed = new PacketBuffer(Unpooled.buffer(this.payload.readableBytes() * 4));
-
-        // Decompress the data
-        byte[] buf = new byte[1024];
-        while (!decompressor.finished()) {
-            try {
-                int count = decompressor.inflate(buf);
-                uncompressed.writeBytes(buf, 0, count);
-            } catch (Exception e) {
+        Inflater decompressor = INFLATER.get();
+        decompressor.reset();
+        decompressor.setInput(this.payload);
+
+        PacketBuffer uncompressed = UNCOMPRESSED_BUFFER.get();
+        uncompressed.clear();
+        uncompressed.ensureWritable(this.uncompressedSize);
+        try {
+            while (!decompressor.finished()) {
+                int count = decompressor.inflate(uncompressed.array(),
+                        uncompressed.arrayOffset() + uncompressed.writerIndex(), uncompressed.writableBytes());
+                if (count == 0 && (decompressor.needsInput() || decompressor.needsDictionary()))
+                    throw new DecoderException("Truncated storage stacks payload.");
+                uncompressed.writerIndex(uncompressed.writerIndex() + count);
+                if (!uncompressed.isWritable())
+                    uncompressed.ensureWritable(DEFAULT_BUFFER_SIZE);
             }
+        } catch (DataFormatException e) {
+            throw new DecoderException("Invalid storage stacks payload.", e);
+        }
+
+        int tagsSize = uncompressed.readVarInt();
+        List<CompoundNBT> tags = new ArrayList<>(tagsSize);
+        for (int i = 0; i < tagsSize; i++) {
+            tags.add(uncompressed.readCompoundTag());
         }
 
-        int stacksSize = uncompressed.readInt();
+        int stacksSize = uncompressed.readVarInt();
         this.stacks = new ArrayList<>(stacksSize);
         for (int i = 0; i < stacksSize; i++) {
-            ItemStack stack = uncompressed.readItemStack();
-            stack.setCount(uncompressed.readInt());
-            this.stacks.add(stack);
+            int count = uncompressed.readVarInt();
+            this.stacks.add(readStack(uncompressed, tags, count));
+        }
+
+        //removed stacks are only identified by item and nbt, they are read with count 1 so they are not empty.
+        int removedStacksSize = uncompressed.readVarInt();
+        this.removedStacks = new ArrayList<>(removedStacksSize);
+        for (int i = 0; i < removedStacksSize; i++) {
+            this.removedStacks.add(readStack(uncompressed, tags, 1));
         }
     }
 
     public void compress() {
-        Deflater compressor = new Deflater();
-        compressor.setLevel(Deflater.BEST_SPEED);
+        //deduplicate nbt, stacks only refer to their index in the table.
+        Map<CompoundNBT, Integer> tags = new LinkedHashMap<>();
+        for (ItemStack stack : this.stacks) {
+            collectTag(stack, tags);
+        }
+        for (ItemStack stack : this.removedStacks) {
+            collectTag(stack, tags);
+        }
 
-        // Give the compressor the data to compress
-        //create buffer with reasonable size (will increase automatically as needed
-        PacketBuffer uncompressed = new PacketBuffer(Unpooled.buffer(DEFAULT_BUFFER_SIZE * this.stacks.size()));
-        uncompressed.writeInt(this.stacks.size());
+        PacketBuffer uncompressed = UNCOMPRESSED_BUFFER.get();
+        uncompressed.clear();
+        uncompressed.writeVarInt(tags.size());
+        for (CompoundNBT tag : tags.keySet()) {
+            uncompressed.writeCompoundTag(tag);
+        }
 
+        uncompressed.writeVarInt(this.stacks.size());
         for (ItemStack stack : this.stacks) {
-            uncompressed.writeItemStack(stack);
-            uncompressed.writeInt(stack.getCount());
+            uncompressed.writeVarInt(stack.getCount());
+            uncompressed.writeVarInt(Item.getIdFromItem(stack.getItem()));
+            writeTag(uncompressed, stack, tags);
         }
 
-        compressor.setInput(uncompressed.array(), 0, uncompressed.readableBytes());
-        compressor.finish();
+        uncompressed.writeVarInt(this.removedStacks.size());
+        for (ItemStack stack : this.removedStacks) {
+            uncompressed.writeVarInt(Item.getIdFromItem(stack.getItem()));
+            writeTag(uncompressed, stack, tags);
+        }
+        this.uncompressedSize = uncompressed.readableBytes();
 
+        Deflater compressor = DEFLATER.get();
+        compressor.reset();
+        compressor.setInput(uncompressed.array(), uncompressed.arrayOffset() + uncompressed.readerIndex(),
+                this.uncompressedSize);
+        compressor.finish();
 
-        this.payload = Unpooled.buffer(DEFAULT_BUFFER_SIZE);
         // Compress the data
-        byte[] buf = new byte[1024];
+        PacketBuffer compressed = COMPRESSED_BUFFER.get();
+        compressed.clear();
+        byte[] buf = CHUNK.get();
         while (!compressor.finished()) {
             int count = compressor.deflate(buf);
-            this.payload.writeBytes(buf, 0, count);
+            compressed.writeBytes(buf, 0, count);
         }
+
+        //the payload is kept while the message is cached, so only it is sized to the actual data.
+        this.payload = new byte[compressed.readableBytes()];
+        compressed.readBytes(this.payload);
     }
     //endregion Methods
 }
@@ -194,6 +194,18 @@ public class OccultismPackets {
                 MessageUpdatePentacles::encode,
                 MessageUpdatePentacles::new,
                 OccultismPacketHandler::handle);
+
+        INSTANCE.registerMessage(nextID(),
+                MessageQueryStacks.class,
+                MessageQueryStacks::encode,
+                MessageQueryStacks::new,
+                OccultismPacketHandler::handle);
+
+        INSTANCE.registerMessage(nextID(),
+                MessageUpdateStackPage.class,
+                MessageUpdateStackPage::encode,
+                MessageUpdateStackPage::new,
+                OccultismPacketHandler::handle);
     }
 
     public static <MSG> void sendTo(ServerPlayerEntity player, MSG message) {
@@ -22,6 +22,7 @@
 
 package com.github.klikli_dev.occultism.util;
 
+import com.github.klikli_dev.occultism.common.entity.GlobalEntityIndex;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.player.ServerPlayerEntity;
@@ -29,7 +30,6 @@ import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.World;
-import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.fml.server.ServerLifecycleHooks;
 import net.minecraftforge.registries.ForgeRegistries;
 
@@ -41,23 +41,24 @@ public class EntityUtil {
     //region Static Methods
 
     /**
-     * Gets the player by given uuid
+     * Gets the player by given uuid, using the {@link GlobalEntityIndex}.
      * Call on server only!
      *
      * @param uuid the uuid of the player
      * @return Optional containing the player.
      */
     public static Optional<ServerPlayerEntity> getPlayerByUuiDGlobal(UUID uuid) {
-        for (ServerWorld world : ServerLifecycleHooks.getCurrentServer().getWorlds()) {
-            ServerPlayerEntity player = (ServerPlayerEntity) world.getPlayerByUuid(uuid);
-            if (player != null)
-                return Optional.of(player);
+        if (uuid != null) {
+            Entity entity = GlobalEntityIndex.get(uuid);
+            if (entity instanceof ServerPlayerEntity)
+                return Optional.of((ServerPlayerEntity) entity);
         }
         return Optional.empty();
     }
 
     /**
-     * Gets the entity by given uuid.
+     * Gets the entity by given uuid, using the {@link GlobalEntityIndex}.
+     * Only spirits, familiars and players are indexed, other entities will not be found.
      * Call on server only!
      *
      * @param uuid the uuid of the entity
@@ -68,20 +69,16 @@ public class EntityUtil {
     }
 
     /**
-     * Gets the entity by given uuid.
+     * Gets the entity by given uuid, using the {@link GlobalEntityIndex}.
+     * Only spirits, familiars and players are indexed, other entities will not be found.
      * Call on server only!
      *
      * @param uuid the uuid of the entity
      * @return Optional containing the entity.
      */
     public static Optional<? extends Entity> getEntityByUuiDGlobal(MinecraftServer server, UUID uuid) {
-        if (uuid != null && server!= null) {
-            for (ServerWorld world : server.getWorlds()) {
-                Entity entity = world.getEntityByUuid(uuid);
-                if (entity != null)
-                    return Optional.of(entity);
-            }
-        }
+        if (uuid != null && server != null)
+            return Optional.ofNullable(GlobalEntityIndex.get(uuid));
         return Optional.empty();
     }
 
@@ -24,7 +24,7 @@ package com.github.klikli_dev.occultism.util;
 
 import com.github.klikli_dev.occultism.api.common.container.IStorageControllerContainer;
 import com.github.klikli_dev.occultism.api.common.tile.IStorageController;
-import com.github.klikli_dev.occultism.network.OccultismPackets;
+import com.github.klikli_dev.occultism.common.misc.ItemFilter;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.CraftingInventory;
 import net.minecraft.inventory.Inventory;
@@ -86,7 +86,7 @@ public class StorageUtil {
 
             //finally if requested, send the updated storage controller contents to the player.
             if (sendStackUpdate) {
-                OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+                storageController.sendStacksTo(player);
                 ((Container) container).detectAndSendChanges();
             }
         }
@@ -124,7 +124,7 @@ public class StorageUtil {
 
             //finally if requested, send the updated storage controller contents to the player.
             if (sendStackUpdate) {
-                OccultismPackets.sendTo(player, storageController.getMessageUpdateStacks());
+                storageController.sendStacksTo(player);
                 ((Container) container).detectAndSendChanges();
             }
         }
@@ -208,6 +208,24 @@ public class StorageUtil {
         return -1;
     }
 
+    /**
+     * Gets the first slot after the given slot that passes the given compiled filter.
+     *
+     * @param handler     the handler to search.
+     * @param slot        the slot to start after, -1 to start at the first slot.
+     * @param filter      the compiled filter.
+     * @param isBlacklist true if the filter is a blacklist.
+     * @return the slot, or -1 if no slot passes the filter.
+     */
+    public static int getFirstMatchingSlotAfter(IItemHandler handler, int slot, ItemFilter filter, boolean isBlacklist) {
+        for (int i = slot+1; i < handler.getSlots(); i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (!stack.isEmpty() && filter.isAllowed(stack, isBlacklist))
+                return i;
+        }
+        return -1;
+    }
+
     public static boolean matchesFilter(ItemStack stack, IItemHandler filter){
         for (int i = 0; i < filter.getSlots(); i++) {
             ItemStack filtered = filter.getStackInSlot(i);